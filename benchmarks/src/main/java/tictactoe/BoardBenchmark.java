@@ -0,0 +1,73 @@
+package tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of the building blocks of every move: win detection, move generation, finding the winning
+ * and blocking cells, and the state of a game.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    /* A mid-game position: X 4, O 0, X 8, O 2, X 1. */
+    private int board;
+    private Game game;
+    private Game bigGame;
+
+    @Setup
+    public void setUp() {
+        int[] moves = {4, 0, 8, 2, 1};
+        game = new Game();
+        for (int move : moves) {
+            game.play(move);
+        }
+        board = game.grid().bits();
+
+        /* The same shape of moves around the center of a 15x15 table, 5 in a row. */
+        bigGame = new Game(15, 5);
+        for (int move : new int[]{112, 96, 128, 98, 97}) {
+            bigGame.play(move);
+        }
+    }
+
+    @Benchmark
+    public boolean winning() {
+        return Board.winning(board, 'X');
+    }
+
+    @Benchmark
+    public void emptyCells(Blackhole blackhole) {
+        for (int empty = Board.emptyCells(board); empty != 0; empty &= empty - 1) {
+            blackhole.consume(Integer.numberOfTrailingZeros(empty));
+        }
+    }
+
+    @Benchmark
+    public int crucialMoveIndex() {
+        return MediumStrategy.getCrucialMoveIndex(game.grid(), 'O', MediumStrategy.CrucialMove.BLOCKING);
+    }
+
+    @Benchmark
+    public int crucialMoveIndexBigTable() {
+        return MediumStrategy.getCrucialMoveIndex(bigGame.grid(), 'O',
+                MediumStrategy.CrucialMove.BLOCKING);
+    }
+
+    @Benchmark
+    public GameState gameState() {
+        return game.state();
+    }
+}
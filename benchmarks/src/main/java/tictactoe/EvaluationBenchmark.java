@@ -0,0 +1,82 @@
+package tictactoe;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Batches of 100,000 positions of random games evaluated per second: by the batch evaluator, in parallel, or one
+ * position after the other by the minimax search of the hard AI, as an analysis job would without it.
+ * A cold minimax search clears its cache for every batch, a warm one keeps the positions it searched before. The
+ * evaluator reads the solved table, so it's the same cold or warm.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluationBenchmark {
+
+    private static final int BATCH_SIZE = 100_000;
+
+    @Param({"evaluator", "minimax"})
+    public String engine;
+
+    @Param({"true", "false"})
+    public boolean cold;
+
+    private int[] boards;
+    private PositionEvaluator evaluator;
+    private HardStrategy minimax;
+
+    @Setup
+    public void setUp() {
+        /* The positions where the game isn't over yet of random games, from a fixed seed. */
+        SplittableRandom random = new SplittableRandom(42);
+        boards = new int[BATCH_SIZE];
+        int count = 0;
+        while (count < BATCH_SIZE) {
+            int board = Board.EMPTY;
+            while (count < BATCH_SIZE && !Board.winning(board, 'X') && !Board.winning(board, 'O') &&
+                    Board.emptyCount(board) > 0) {
+                boards[count++] = board;
+                int empty = Board.emptyCells(board);
+                for (int skip = random.nextInt(Integer.bitCount(empty)); skip > 0; skip--) {
+                    empty &= empty - 1;
+                }
+                board = Board.place(board, Integer.numberOfTrailingZeros(empty), Board.sideToMove(board));
+            }
+        }
+
+        evaluator = new PositionEvaluator();
+        minimax = new HardStrategy(SearchMode.MINIMAX);
+    }
+
+    @Benchmark
+    public int evaluateBatch() {
+        if (engine.equals("evaluator")) {
+            return evaluator.evaluate(boards).map(PositionEvaluator::bestMove).sum();
+        }
+
+        if (cold) {
+            minimax.cache().clear();
+        }
+        int moves = 0;
+        for (int board : boards) {
+            moves += minimax.bestMove(board);
+        }
+        return moves;
+    }
+}
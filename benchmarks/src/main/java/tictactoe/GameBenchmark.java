@@ -0,0 +1,50 @@
+package tictactoe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full headless games per second between two AI players on the 3x3 table, as played by the simulate command.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+
+    @Param({"easy:easy", "medium:medium", "easy:hard", "hard:hard"})
+    public String players;
+
+    private Player playerX;
+    private Player playerO;
+    private LatencyHistogram moveLatency;
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        String[] difficulties = players.split(":");
+        playerX = new ComputerPlayer(difficulties[0], 'X', true);
+        playerO = new ComputerPlayer(difficulties[1], 'O', true);
+        moveLatency = new LatencyHistogram();
+        game = new Game();
+    }
+
+    @Benchmark
+    public GameState headlessGame() {
+        game.reset();
+        return Simulation.playGame(game, playerX, playerO, moveLatency);
+    }
+}
@@ -0,0 +1,52 @@
+package tictactoe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time taken by the MCTS AI to pick a move after the first move, with a fixed number of playouts, on the 3x3
+ * table and on a 15x15 table where five in a row win, with one tree or one tree per core.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MonteCarloBenchmark {
+
+    @Param({"3", "15"})
+    public int size;
+
+    @Param({"1000", "10000"})
+    public int playouts;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private MonteCarloSearch search;
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        search = new MonteCarloSearch(playouts, 60_000, parallel);
+        game = new Game(size, Math.min(size, 5));
+        game.play(size / 2 * size + size / 2);
+    }
+
+    @Benchmark
+    public int bestMove() {
+        return search.bestMove(game.grid(), game.turn());
+    }
+}
@@ -0,0 +1,73 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Frames drawn per second by the renderer, on the 3x3 table and on a 15x15 table with three moves played, to no
+ * target (the drawing alone) and to a buffered file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    @Param({"3", "15"})
+    public int size;
+
+    @Param({"none", "file"})
+    public String target;
+
+    private Renderer renderer;
+    private Path file;
+    private Game game;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("frames", ".txt");
+        game = new Game(size, Math.min(size, 5));
+        for (int move = 0; move < 3; move++) {
+            game.play(move * (size + 1));
+        }
+    }
+
+    /* The file is replaced every iteration, so it doesn't grow for the whole run. */
+    @Setup(Level.Iteration)
+    public void openRenderer() throws IOException {
+        renderer = new Renderer(RenderTargets.open(target.equals("file") ? "file:" + file : target), 1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeRenderer() {
+        renderer.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public void drawTable() {
+        renderer.table(game.grid(), false);
+    }
+}
@@ -0,0 +1,59 @@
+package tictactoe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the hard AI picking a move on the 3x3 table, from the empty table and from mid-game positions.
+ * A cold search starts from an empty transposition table every time, a warm one keeps what it learned before,
+ * as it does across the moves of a game.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    /* The positions to search from: the empty table, then X in the center and O in a corner,
+     * then X 4, O 0, X 8, O 2 (X to move and forced to block). */
+    private static final int[] POSITIONS = {
+            Board.EMPTY,
+            Board.place(Board.place(Board.EMPTY, 4, 'X'), 0, 'O'),
+            Board.place(Board.place(Board.place(Board.place(Board.EMPTY, 4, 'X'), 0, 'O'), 8, 'X'), 2, 'O')
+    };
+
+    @Param({"minimax", "alphabeta", "table"})
+    public String mode;
+
+    @Param({"0", "2", "4"})
+    public int movesPlayed;
+
+    @Param({"true", "false"})
+    public boolean cold;
+
+    private HardStrategy hard;
+    private int board;
+
+    @Setup
+    public void setUp() {
+        board = POSITIONS[movesPlayed / 2];
+        hard = new HardStrategy(SearchMode.of(mode));
+    }
+
+    @Benchmark
+    public int searchBestMove() {
+        if (cold) {
+            hard.cache().clear();
+        }
+        return hard.bestMove(board);
+    }
+}
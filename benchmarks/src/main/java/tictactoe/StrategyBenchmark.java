@@ -0,0 +1,81 @@
+package tictactoe;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Moves per second of the easy and medium levels, the ones played the most, at the start of a game and near its
+ * end, when only a few cells are left for the random moves to land on.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StrategyBenchmark {
+
+    @Param({"easy", "medium"})
+    public String strategy;
+
+    @Param({"3", "15"})
+    public int size;
+
+    /* The opening has two symbols on the table, the endgame two empty cells left, or more if more symbols can't be
+     * placed without a line of K. */
+    @Param({"opening", "endgame"})
+    public String phase;
+
+    private MoveStrategy moveStrategy;
+    private Grid grid;
+
+    @Setup
+    public void setUp() {
+        moveStrategy = MoveStrategies.create(strategy);
+        moveStrategy.seed(1);
+        grid = new Grid(size, Math.min(size, 5));
+
+        /* Fill the cells in a random order, taking turns, but with the other symbol (or none) where one would
+         * complete a line. */
+        SplittableRandom random = new SplittableRandom(1);
+        int[] cells = new int[grid.cellCount()];
+        for (int cell = 0; cell < cells.length; cell++) {
+            int other = random.nextInt(cell + 1);
+            cells[cell] = cells[other];
+            cells[other] = cell;
+        }
+        int symbols = phase.equals("opening") ? 2 : grid.cellCount() - 2;
+        char turn = 'X';
+        for (int cell = 0; cell < cells.length && grid.cellCount() - grid.emptyCount() < symbols; cell++) {
+            if (placeWithoutWinning(cells[cell], turn) || placeWithoutWinning(cells[cell], Board.opponent(turn))) {
+                turn = Board.opponent(turn);
+            }
+        }
+    }
+
+    private boolean placeWithoutWinning(int index, char symbol) {
+        grid.place(index, symbol);
+        if (grid.winner() == Grid.EMPTY) {
+            return true;
+        }
+        grid.remove(index);
+        return false;
+    }
+
+    @Benchmark
+    public int chooseMove() {
+        return moveStrategy.chooseMove(grid, 'X');
+    }
+}
@@ -0,0 +1,70 @@
+package tictactoe;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ultimate Tic-Tac-Toe: the time taken by the hard AI to search a move to a fixed depth, from the empty table and
+ * from a position after 20 random moves, and by a whole game of random legal moves, which measures the move
+ * generation and the rules.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UltimateBenchmark {
+
+    @Param({"0", "20"})
+    public int movesPlayed;
+
+    @Param({"4", "6"})
+    public int depth;
+
+    private UltimateSearch search;
+    private UltimateGame game;
+    private UltimateGame randomGame;
+    private SplittableRandom random;
+    private final int[] moves = new int[UltimateGame.MOVES];
+
+    @Setup
+    public void setUp() {
+        search = new UltimateSearch(60_000, depth);
+        random = new SplittableRandom(42);
+        game = new UltimateGame();
+        while (game.moveCount() < movesPlayed) {
+            game.play(moves[random.nextInt(game.legalMoves(moves))]);
+            if (game.isOver()) {
+                game.reset();
+            }
+        }
+        randomGame = new UltimateGame();
+    }
+
+    @Benchmark
+    public int searchBestMove() {
+        return search.bestMove(game);
+    }
+
+    @Benchmark
+    public GameState randomGame() {
+        randomGame.reset();
+        while (!randomGame.isOver()) {
+            randomGame.play(moves[random.nextInt(randomGame.legalMoves(moves))]);
+        }
+        return randomGame.state();
+    }
+}
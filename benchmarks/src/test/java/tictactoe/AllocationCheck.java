@@ -0,0 +1,165 @@
+package tictactoe;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that the AI hot path allocates nothing: once warmed up, playing games and searching moves must not
+ * allocate a single byte on the playing thread. It runs in the test phase of the build and fails it otherwise:
+ * <pre>
+ * mvn test
+ * </pre>
+ */
+public class AllocationCheck {
+
+    private static final int GAMES = 2_000;
+
+    /*
+     * Runs before counting, so the JIT is done compiling the work. The short runs take many of them before the
+     * last recompilations are over.
+     */
+    private static final int WARM_UP_RUNS = 20;
+
+    /* Counted runs, every one of which must allocate nothing. */
+    private static final int COUNTED_RUNS = 3;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static boolean failed;
+
+    public static void main(String[] args) {
+        checkGames("easy", "easy", SearchMode.SOLVED_TABLE);
+        checkGames("medium", "medium", SearchMode.SOLVED_TABLE);
+        checkGames("easy", "hard", SearchMode.SOLVED_TABLE);
+        checkGames("medium", "hard", SearchMode.MINIMAX);
+        checkGames("medium", "hard", SearchMode.ALPHA_BETA);
+        checkColdSearch(SearchMode.MINIMAX);
+        checkColdSearch(SearchMode.ALPHA_BETA);
+        checkDeepeningSearch();
+        /* Few enough playouts on 3x3 that the tree always fits the buffers it starts with: a tree bigger than any
+         * before, now and then, would grow them once more. */
+        checkMonteCarloSearch(new Game(), 500);
+        checkMonteCarloSearch(new Game(15, 5), 1_000);
+        checkUltimateSearch();
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static void checkGames(String playerX, String playerO, SearchMode searchMode) {
+        check(GAMES + " games of " + playerX + " against " + playerO + " (" + searchMode + ")",
+                Work.games(playerX, playerO, searchMode));
+    }
+
+    private static void checkColdSearch(SearchMode searchMode) {
+        check("hard searches from the empty table (" + searchMode + ")", Work.coldSearch(searchMode));
+    }
+
+    private static void checkDeepeningSearch() {
+        check("depth 3 searches on a 15x15 table", Work.deepeningSearch());
+    }
+
+    private static void checkUltimateSearch() {
+        check("depth 4 searches of ultimate Tic-Tac-Toe", Work.ultimateSearch());
+    }
+
+    private static void checkMonteCarloSearch(Game game, int playouts) {
+        check("MCTS searches on a " + game.grid().size() + "x" + game.grid().size() + " table",
+                Work.monteCarloSearch(game, playouts));
+    }
+
+    /**
+     * Run the work many times to warm it up, then a few more counting the bytes it allocates, which must be none
+     * in every one of them.
+     */
+    private static void check(String name, Runnable work) {
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            work.run();
+        }
+
+        long allocated = 0;
+        for (int i = 0; i < COUNTED_RUNS; i++) {
+            long before = THREADS.getThreadAllocatedBytes(threadId);
+            work.run();
+            allocated = Math.max(allocated, THREADS.getThreadAllocatedBytes(threadId) - before);
+        }
+
+        System.out.println((allocated == 0 ? "OK     " : "FAILED ") + name + ": " + allocated +
+                " bytes allocated in the worst of " + COUNTED_RUNS + " runs");
+        failed |= allocated != 0;
+    }
+
+    /**
+     * The work checked, kept apart from the names and messages of the checks. The first time the JIT fully
+     * compiles a method, it resolves the string constants of its class on the thread asking for it, which
+     * allocates them; a class without any can be compiled in the middle of a counted run.
+     */
+    private static final class Work {
+
+        static Runnable games(String playerX, String playerO, SearchMode searchMode) {
+            Player player1 = new ComputerPlayer(playerX, 'X', searchMode, true);
+            Player player2 = new ComputerPlayer(playerO, 'O', searchMode, true);
+            LatencyHistogram moveLatency = new LatencyHistogram();
+            Game game = new Game();
+
+            return () -> {
+                for (int i = 0; i < GAMES; i++) {
+                    game.reset();
+                    Simulation.playGame(game, player1, player2, moveLatency);
+                }
+            };
+        }
+
+        static Runnable coldSearch(SearchMode searchMode) {
+            HardStrategy hard = new HardStrategy(searchMode);
+
+            return () -> {
+                for (int i = 0; i < 100; i++) {
+                    hard.cache().clear();
+                    hard.bestMove(Board.EMPTY);
+                }
+            };
+        }
+
+        static Runnable deepeningSearch() {
+            DeepeningSearch search = new DeepeningSearch(60_000, 3, false);
+            Game game = new Game(15, 5);
+            for (int move : new int[]{112, 96, 128, 98, 97}) {
+                game.play(move);
+            }
+
+            return () -> {
+                for (int i = 0; i < 5; i++) {
+                    search.bestMove(game.grid(), game.turn());
+                }
+            };
+        }
+
+        static Runnable ultimateSearch() {
+            UltimateSearch search = new UltimateSearch(60_000, 4);
+            UltimateGame game = new UltimateGame();
+            for (int move : new int[]{40, 36, 4, 42, 60}) {
+                game.play(move);
+            }
+
+            return () -> {
+                for (int i = 0; i < 5; i++) {
+                    search.bestMove(game);
+                }
+            };
+        }
+
+        static Runnable monteCarloSearch(Game game, int playouts) {
+            MonteCarloSearch search = new MonteCarloSearch(playouts, 60_000, false);
+            game.play(game.grid().cellCount() / 2);
+
+            return () -> {
+                for (int i = 0; i < 5; i++) {
+                    search.bestMove(game.grid(), game.turn());
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package tictactoe;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+
+/**
+ * Checks how the AI plays by replaying scripted games against it: a human player reads its moves from a script
+ * instead of the standard input, and the AI answers them as it would in a real game. It runs in the test phase of
+ * the build, after AllocationCheck, and fails it when the AI plays worse than it must:
+ * - hard never loses on the 3x3 table, with any search mode, whatever the human plays,
+ * - medium always takes a win when it has one, and otherwise always blocks a win of the human,
+ * or, when a budget is given, when its moves are slower than the budget.
+ * <p>
+ * On the 3x3 table, every game the human can play is replayed: each script is replayed from the start, and the
+ * scripts grow by one move at a time wherever the human is to move. Medium is seeded the same for every replay, so
+ * it answers a script the same every time. On a bigger table, the human plays random scripts: every cell in
+ * a random order, skipping the ones already taken, as a human is asked again after picking a taken cell.
+ * <p>
+ * The time of every AI move is recorded, and the 99th percentile of each AI is printed. It depends on the machine,
+ * so it's only checked against a budget per move, in microseconds, when one is given:
+ * <pre>
+ * mvn test -DmoveBudgetMicros=500
+ * </pre>
+ */
+public class ReplayCheck {
+
+    /* The budget of the 99th percentile of the AI moves, or 0 not to check it. */
+    private static final long MOVE_BUDGET_MICROS = Long.getLong("tictactoe.moveBudgetMicros", 0);
+
+    /* The seeds medium plays every script of the 3x3 table with. */
+    private static final long[] SEEDS = {1, 2, 3};
+
+    /* The random scripts played against medium on a bigger table. */
+    private static final int RANDOM_SCRIPTS = 500;
+
+    /* Scripted human players are prompted here, which prints nothing. */
+    private static final PrintStream NOWHERE = new PrintStream(OutputStream.nullOutputStream());
+
+    private static boolean failed;
+
+    public static void main(String[] args) {
+        for (SearchMode searchMode : SearchMode.values()) {
+            LatencyHistogram moveLatency = new LatencyHistogram();
+            for (char aiSymbol : new char[]{'X', 'O'}) {
+                Replay replay = new Replay(new ComputerPlayer("hard", aiSymbol, searchMode, true), 3, 3,
+                        false, moveLatency);
+                replay.replayEveryScript("", 0);
+                report(replay.losses == 0, "hard (" + searchMode + ") as " + aiSymbol + " never loses: " +
+                        replay.losses + " lost of " + replay.games + " games");
+            }
+            checkBudget("hard (" + searchMode + ")", moveLatency);
+        }
+
+        LatencyHistogram moveLatency = new LatencyHistogram();
+        for (char aiSymbol : new char[]{'X', 'O'}) {
+            Replay replay = new Replay(new ComputerPlayer("medium", aiSymbol, true), 3, 3, true, moveLatency);
+            for (long seed : SEEDS) {
+                replay.seed = seed;
+                replay.replayEveryScript("", 0);
+            }
+            reportCrucialMoves("medium as " + aiSymbol + " on the 3x3 table", replay);
+
+            SplittableRandom random = new SplittableRandom(aiSymbol);
+            replay = new Replay(new ComputerPlayer("medium", aiSymbol, true), 7, 4, true, moveLatency);
+            for (int i = 0; i < RANDOM_SCRIPTS; i++) {
+                replay.seed = i;
+                replay.replay(randomScript(49, random), Integer.MAX_VALUE);
+            }
+            reportCrucialMoves("medium as " + aiSymbol + " on a 7x7 table", replay);
+        }
+        checkBudget("medium", moveLatency);
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns a script of every cell of a table with this many cells, in a random order.
+     */
+    private static String randomScript(int cellCount, SplittableRandom random) {
+        int[] cells = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            int j = random.nextInt(i + 1);
+            cells[i] = cells[j];
+            cells[j] = i;
+        }
+        StringBuilder script = new StringBuilder();
+        for (int cell : cells) {
+            script.append(cell).append(' ');
+        }
+        return script.toString();
+    }
+
+    private static void reportCrucialMoves(String name, Replay replay) {
+        report(replay.missedCrucialMoves == 0, name + " takes its wins and blocks: " + replay.missedCrucialMoves +
+                " missed of " + replay.crucialMoves + " in " + replay.games + " games");
+    }
+
+    private static void checkBudget(String name, LatencyHistogram moveLatency) {
+        if (MOVE_BUDGET_MICROS == 0) {
+            System.out.println("       " + name + " moves: " + moveLatency.summary() + ".");
+            return;
+        }
+        report(moveLatency.percentile(99) <= MOVE_BUDGET_MICROS * 1_000, name + " moves within " +
+                MOVE_BUDGET_MICROS + " us at p99: " + moveLatency.summary());
+    }
+
+    private static void report(boolean ok, String line) {
+        System.out.println((ok ? "OK     " : "FAILED ") + line + ".");
+        failed |= !ok;
+    }
+
+    /**
+     * The games of scripted human moves against one AI player, and what the AI did in them.
+     */
+    private static final class Replay {
+
+        private final ComputerPlayer ai;
+        private final char humanSymbol;
+        private final int size;
+        private final int k;
+        private final boolean checkCrucialMoves;
+        private final LatencyHistogram moveLatency;
+
+        /* The AI is seeded with it before every game, so it answers the same script the same way. */
+        long seed;
+
+        long games;
+        long losses;
+        long crucialMoves;
+        long missedCrucialMoves;
+
+        /**
+         * @param checkCrucialMoves whether to check that the AI takes its wins and blocks.
+         * @param moveLatency       where the time of the AI moves is recorded.
+         */
+        Replay(ComputerPlayer ai, int size, int k, boolean checkCrucialMoves, LatencyHistogram moveLatency) {
+            this.ai = ai;
+            this.humanSymbol = Board.opponent(ai.symbol);
+            this.size = size;
+            this.k = k;
+            this.checkCrucialMoves = checkCrucialMoves;
+            this.moveLatency = moveLatency;
+        }
+
+        /**
+         * Replay this script of human moves, then every script that adds one more move to it, and so on, until
+         * every game that starts with this script is over.
+         */
+        void replayEveryScript(String script, int humanMoves) {
+            Game game = replay(script, humanMoves);
+            if (game.isOver()) {
+                return;
+            }
+            for (int index = 0; index < game.grid().cellCount(); index++) {
+                if (game.isCellEmpty(index)) {
+                    replayEveryScript(script + index + " ", humanMoves + 1);
+                }
+            }
+        }
+
+        /**
+         * Play a new game where the human plays this many moves of this script, until it's over or the human is
+         * to move after them.
+         */
+        Game replay(String script, int humanMoves) {
+            Game game = new Game(size, k);
+            ai.seed(seed);
+            HumanPlayer human = new HumanPlayer(humanSymbol, new Scanner(script), NOWHERE);
+
+            int played = 0;
+            while (!game.isOver()) {
+                if (game.turn() == humanSymbol) {
+                    if (played == humanMoves) {
+                        return game;
+                    }
+                    human.makeMove(game);
+                    played++;
+                } else {
+                    playAi(game);
+                }
+            }
+
+            games++;
+            if (game.grid().winner() == humanSymbol) {
+                losses++;
+            }
+            return game;
+        }
+
+        /**
+         * Play the move of the AI, timing it, and check it took a win if it had one, or otherwise blocked a win of
+         * the human if it had one.
+         */
+        private void playAi(Game game) {
+            boolean[] wins = checkCrucialMoves ? winningCells(game.grid(), ai.symbol) : null;
+            boolean[] blocks = checkCrucialMoves ? winningCells(game.grid(), humanSymbol) : null;
+
+            long moveStart = System.nanoTime();
+            ai.makeMove(game);
+            moveLatency.record(System.nanoTime() - moveStart);
+
+            if (checkCrucialMoves) {
+                int move = game.moveAt(game.moveCount() - 1);
+                boolean[] crucial = contains(wins) ? wins : blocks;
+                if (contains(crucial)) {
+                    crucialMoves++;
+                    if (!crucial[move]) {
+                        missedCrucialMoves++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns which empty cells would win the game right away for the player with this symbol.
+         */
+        private static boolean[] winningCells(Grid grid, char symbol) {
+            Grid scratch = grid.copy();
+            boolean[] winning = new boolean[grid.cellCount()];
+            for (int index = 0; index < grid.cellCount(); index++) {
+                if (scratch.isCellEmpty(index)) {
+                    scratch.place(index, symbol);
+                    winning[index] = scratch.winner() == symbol;
+                    scratch.remove(index);
+                }
+            }
+            return winning;
+        }
+
+        private static boolean contains(boolean[] cells) {
+            for (boolean cell : cells) {
+                if (cell) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
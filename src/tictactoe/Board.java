@@ -0,0 +1,282 @@
+package tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * A compact Tic-Tac-Toe board made of two 9-bit masks, one per player, packed into a single int.
+ * Bits 0-8 hold the cells of X and bits 9-17 hold the cells of O, where bit i stands for the cell with index i:
+ * <pre>
+ * 0 | 1 | 2
+ * 3 | 4 | 5
+ * 6 | 7 | 8
+ * </pre>
+ * Boards are plain ints, so they can be copied, compared and hashed for free.
+ */
+final class Board {
+
+    /* Number of cells in the table. */
+    static final int CELLS = 9;
+
+    /* A mask with all the 9 cells set. */
+    static final int FULL = 0x1FF;
+
+    /* The board with no symbols on it. */
+    static final int EMPTY = 0;
+
+    /* The eight lines that win the game: three rows, three columns and two diagonals. */
+    static final int[] LINES = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000,
+            0b001_001_001, 0b010_010_010, 0b100_100_100,
+            0b100_010_001, 0b001_010_100
+    };
+
+    /* The cells by the order they are worth trying in a search: the center, then the corners, then the edges. */
+    static final int CENTER = 0b000_010_000;
+    static final int CORNERS = 0b101_000_101;
+    static final int EDGES = 0b010_101_010;
+
+    /* For every cell, the other two cells of each line passing through it, as 9-bit masks. */
+    private static final int[][] CELL_LINES = new int[CELLS][];
+
+    /* For every 9-bit mask of the cells of a player, the cells that would complete one of its lines,
+     * whether they're empty or not. */
+    private static final short[] COMPLETING_CELLS = new short[FULL + 1];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int lineCount = 0;
+            int[] cellLines = new int[LINES.length];
+            for (int line : LINES) {
+                if ((line & 1 << cell) != 0) {
+                    cellLines[lineCount++] = line & ~(1 << cell);
+                }
+            }
+            CELL_LINES[cell] = Arrays.copyOf(cellLines, lineCount);
+        }
+
+        for (int cells = 0; cells <= FULL; cells++) {
+            int completing = 0;
+            for (int cell = 0; cell < CELLS; cell++) {
+                for (int otherCells : CELL_LINES[cell]) {
+                    if ((cells & otherCells) == otherCells) {
+                        completing |= 1 << cell;
+                    }
+                }
+            }
+            COMPLETING_CELLS[cells] = (short) completing;
+        }
+    }
+
+    private Board() {
+    }
+
+    /**
+     * The eight symmetries of the table, built when first used, so only canonical() pays for them.
+     */
+    private static final class Symmetries {
+
+        /* The symmetries (four rotations, each one optionally mirrored) as cell permutations:
+         * PERMUTATIONS[s][i] is the index where the cell with index i lands. */
+        static final int[][] PERMUTATIONS = {
+                {0, 1, 2, 3, 4, 5, 6, 7, 8},
+                {2, 5, 8, 1, 4, 7, 0, 3, 6},
+                {8, 7, 6, 5, 4, 3, 2, 1, 0},
+                {6, 3, 0, 7, 4, 1, 8, 5, 2},
+                {2, 1, 0, 5, 4, 3, 8, 7, 6},
+                {0, 3, 6, 1, 4, 7, 2, 5, 8},
+                {6, 7, 8, 3, 4, 5, 0, 1, 2},
+                {8, 5, 2, 7, 4, 1, 6, 3, 0}
+        };
+
+        /* Every 9-bit mask transformed by every symmetry, so a board is transformed with two lookups. */
+        static final int[][] TRANSFORMED_MASKS = new int[PERMUTATIONS.length][FULL + 1];
+
+        /* The symmetry that undoes each symmetry. */
+        static final int[] INVERSES = new int[PERMUTATIONS.length];
+
+        static {
+            for (int s = 0; s < PERMUTATIONS.length; s++) {
+                for (int t = 0; t < PERMUTATIONS.length; t++) {
+                    int i = 0;
+                    while (i < CELLS && PERMUTATIONS[t][PERMUTATIONS[s][i]] == i) {
+                        i++;
+                    }
+                    if (i == CELLS) {
+                        INVERSES[s] = t;
+                    }
+                }
+            }
+            for (int s = 0; s < PERMUTATIONS.length; s++) {
+                for (int mask = 0; mask <= FULL; mask++) {
+                    int transformed = 0;
+                    for (int i = 0; i < CELLS; i++) {
+                        if ((mask & 1 << i) != 0) {
+                            transformed |= 1 << PERMUTATIONS[s][i];
+                        }
+                    }
+                    TRANSFORMED_MASKS[s][mask] = transformed;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the 9-bit mask of the cells taken by the player with this symbol.
+     */
+    static int mask(int board, char symbol) {
+        return symbol == 'X' ? board & FULL : board >>> CELLS;
+    }
+
+    /**
+     * Returns the 9-bit mask of the cells taken by any of the two players.
+     */
+    static int occupied(int board) {
+        return (board | board >>> CELLS) & FULL;
+    }
+
+    /**
+     * Returns the 9-bit mask of the empty cells. They can be enumerated without scanning the table:
+     * <pre>
+     * for (int empty = emptyCells(board); empty != 0; empty &= empty - 1) {
+     *     int index = Integer.numberOfTrailingZeros(empty);
+     * }
+     * </pre>
+     */
+    static int emptyCells(int board) {
+        return ~occupied(board) & FULL;
+    }
+
+    /**
+     * Returns the number of empty cells.
+     */
+    static int emptyCount(int board) {
+        return CELLS - Integer.bitCount(board);
+    }
+
+    static boolean isCellEmpty(int board, int index) {
+        return (occupied(board) & 1 << index) == 0;
+    }
+
+    /**
+     * Returns a new board with this symbol placed on the cell with this index. The cell must be empty.
+     */
+    static int place(int board, int index, char symbol) {
+        return board | 1 << (symbol == 'X' ? index : index + CELLS);
+    }
+
+    /**
+     * Returns 'X' or 'O' if the cell is taken, otherwise returns the index of the cell as a char.
+     */
+    static char symbolAt(int board, int index) {
+        if ((board & 1 << index) != 0) {
+            return 'X';
+        }
+        if ((board & 1 << (index + CELLS)) != 0) {
+            return 'O';
+        }
+        return (char) index;
+    }
+
+    /**
+     * Check if the player with the provided symbol has 3 symbols in a row on this board.
+     */
+    static boolean winning(int board, char symbol) {
+        return isWinningMask(mask(board, symbol));
+    }
+
+    /**
+     * Check if this 9-bit mask of cells covers at least one of the eight lines.
+     */
+    static boolean isWinningMask(int cells) {
+        for (int line : LINES) {
+            if ((cells & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the 9-bit mask of the empty cells that would complete a line of this symbol,
+     * i.e. the cells that win the game for this symbol right away.
+     */
+    static int crucialCells(int board, char symbol) {
+        return COMPLETING_CELLS[mask(board, symbol)] & emptyCells(board);
+    }
+
+    /**
+     * Returns the canonical form of this board: the smallest of its eight rotations and reflections.
+     * Boards that only differ by a symmetry share the same canonical form, so they have the same value.
+     */
+    static int canonical(int board) {
+        int x = board & FULL;
+        int o = board >>> CELLS;
+        int canonical = board;
+        int[][] transformedMasks = Symmetries.TRANSFORMED_MASKS;
+        for (int s = 1; s < transformedMasks.length; s++) {
+            int transformed = transformedMasks[s][x] | transformedMasks[s][o] << CELLS;
+            if (transformed < canonical) {
+                canonical = transformed;
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns the symmetry that turns this board into its canonical form (see canonical()), to map the cells of the
+     * canonical board back with restoreCells().
+     */
+    static int canonicalSymmetry(int board) {
+        int x = board & FULL;
+        int o = board >>> CELLS;
+        int canonical = board;
+        int symmetry = 0;
+        int[][] transformedMasks = Symmetries.TRANSFORMED_MASKS;
+        for (int s = 1; s < transformedMasks.length; s++) {
+            int transformed = transformedMasks[s][x] | transformedMasks[s][o] << CELLS;
+            if (transformed < canonical) {
+                canonical = transformed;
+                symmetry = s;
+            }
+        }
+        return symmetry;
+    }
+
+    /**
+     * Returns the 9-bit mask of the cells that this symmetry turned into these cells.
+     */
+    static int restoreCells(int cells, int symmetry) {
+        return Symmetries.TRANSFORMED_MASKS[Symmetries.INVERSES[symmetry]][cells];
+    }
+
+    /**
+     * Check if this int is a position of a real game: two 9-bit masks that don't overlap, X played first,
+     * and the game didn't go on after a win.
+     */
+    static boolean isLegal(int board) {
+        if ((board & ~(FULL | FULL << CELLS)) != 0 || (board & FULL & board >>> CELLS) != 0) {
+            return false;
+        }
+        int xCount = Integer.bitCount(board & FULL);
+        int oCount = Integer.bitCount(board >>> CELLS);
+        if (xCount != oCount && xCount != oCount + 1) {
+            return false;
+        }
+        /* Only the player who made the last move can have won. */
+        if (winning(board, 'X')) {
+            return xCount == oCount + 1 && !winning(board, 'O');
+        }
+        return !winning(board, 'O') || xCount == oCount;
+    }
+
+    /**
+     * Returns the symbol of the player to move on this board. X always plays first.
+     */
+    static char sideToMove(int board) {
+        return Integer.bitCount(board & FULL) == Integer.bitCount(board >>> CELLS) ? 'X' : 'O';
+    }
+
+    static char opponent(char symbol) {
+        return symbol == 'X' ? 'O' : 'X';
+    }
+}
@@ -1,20 +1,53 @@
 package tictactoe;
 
 import java.util.Arrays;
-import java.util.Random;
-
-import static tictactoe.Main.*;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public class ComputerPlayer extends Player {
 
-    /* Difficulty of the AI.
+    /* Difficulty of the AI: the name of its strategy (see MoveStrategies).
      * It can be:
      * - Easy: always makes random moves.
      * - Medium: blocks a direct win or makes a one move to win.
      * - Hard: tries to win all the time.
+     * - MCTS: plays the move that wins the most random games played from the table.
+     * - Any other strategy found by the registry.
      * */
     private final String difficulty;
 
+    /* How the AI picks its moves, picked once by difficulty, so a move is a single call. */
+    private final MoveStrategy strategy;
+
+    /* The score of a won game. Every cell left empty adds one, so the AI prefers faster wins and slower loses. */
+    static final int WIN_SCORE = 10;
+
+    /* A headless player doesn't print anything nor waits before its moves, for simulations. */
+    private final boolean headless;
+
+    /* How long the AI waits before its moves, unless headless, in milliseconds, so a human can follow the game.
+     * Run with -Dtictactoe.moveDelayMillis=<millis> to change it, or 0 not to wait. */
+    static final long MOVE_DELAY_MILLIS = Long.getLong("tictactoe.moveDelayMillis", 1500L);
+
+    /* How long the hard and MCTS levels may think about a move on tables bigger than 3x3, in milliseconds.
+     * Run with -Dtictactoe.thinkMillis=<millis> to change it. */
+    static final long THINK_MILLIS = Long.getLong("tictactoe.thinkMillis", 1000L);
+
+    /* Whether the hard and MCTS levels search the moves on tables bigger than 3x3 on all cores.
+     * Run with -Dtictactoe.parallelSearch=true to turn it on. */
+    static final boolean PARALLEL_SEARCH = Boolean.getBoolean("tictactoe.parallelSearch");
+
+    /* The player that thinks about the replies to the opponent's moves while the opponent thinks (see ponder()),
+     * and its last pondering. */
+    private ComputerPlayer ponderer;
+    private Pondering pondering;
+
+    /* The metrics of the moves of this difficulty level, or null when the metrics are off (see Metrics) or the
+     * player only ponders. */
+    private final MoveMetrics metrics;
+
     /**
      * Create an AI player.
      *
@@ -22,351 +55,191 @@ public class ComputerPlayer extends Player {
      * @param symbol     of the AI player, X or O.
      */
     public ComputerPlayer(String difficulty, char symbol) {
-        this.difficulty = difficulty;
-        super.symbol = symbol;
+        this(difficulty, symbol, false);
     }
 
     /**
-     * Make a move by filling an empty cell in the table.
-     * The type of the move depends on the AI difficulty level.
+     * Create an AI player.
+     *
+     * @param difficulty of the AI.
+     * @param symbol     of the AI player, X or O.
+     * @param headless   whether the player makes its moves silently and without waiting.
      */
-    @Override
-    protected void makeMove() {
-        System.out.println("Making move level " + difficulty + " (as " + this.symbol + ").");
-
-        try {
-            Thread.sleep(1500L);
-        } catch (InterruptedException e) {
-            System.out.println("Interrupted Exception -> " + Arrays.toString(e.getStackTrace()));
-        }
-
-        switch (difficulty) {
-            case "easy":
-                makeMoveEasy();
-                break;
-
-            case "medium":
-                makeMoveMedium();
-                break;
-
-            case "hard":
-                makeMoveHard();
-        }
+    ComputerPlayer(String difficulty, char symbol, boolean headless) {
+        this(difficulty, symbol, MoveStrategies.create(difficulty), headless);
     }
 
     /**
-     * The easy level always makes random moves regardless of the state of the game.
+     * Create an AI player whose hard level picks its moves with this search mode.
+     *
+     * @param difficulty of the AI.
+     * @param symbol     of the AI player, X or O.
+     * @param searchMode how the hard level picks its moves.
+     * @param headless   whether the player makes its moves silently and without waiting.
      */
-    private void makeMoveEasy() {
-        makeRandomMove();
+    ComputerPlayer(String difficulty, char symbol, SearchMode searchMode, boolean headless) {
+        this(difficulty, symbol,
+                difficulty.equals("hard") ? new HardStrategy(searchMode) : MoveStrategies.create(difficulty),
+                headless);
     }
 
     /**
-     * The "medium" level difficulty makes a move using the following process:
-     * - If it can win in one move (if it has two in a row), it places a third to get three in a row and win.
-     * - If the opponent can win in one move, it plays the third itself to block the opponent to win.
-     * - Otherwise, it makes a random move.
+     * Create an AI player.
+     *
+     * @param difficulty of the AI, the name of its strategy.
+     * @param symbol     of the AI player, X or O.
+     * @param strategy   how the AI picks its moves, only used by this player.
+     * @param headless   whether the player makes its moves silently and without waiting.
      */
-    private void makeMoveMedium() {
-
-        /* Get the index of the winning move, if exists. */
-        int winningMoveIndex = getCrucialMoveIndex("winning");
-        /* Is there a winning move? If so, play it and win. */
-        if (winningMoveIndex > -1) {
-            Main.table[winningMoveIndex] = this.symbol;
-            return;
-        }
-
-        /* Get the index of a blocking move, if exists. */
-        int blockingMoveIndex = getCrucialMoveIndex("blocking");
-        /* Is there a blocking move? If so, play it and block the opponent from winning. */
-        if (blockingMoveIndex > -1) {
-            Main.table[blockingMoveIndex] = this.symbol;
-            return;
-        }
+    ComputerPlayer(String difficulty, char symbol, MoveStrategy strategy, boolean headless) {
+        this(difficulty, symbol, strategy, headless, Metrics.ENABLED ? Metrics.moves(difficulty) : null);
+    }
 
-        /* If there is no winning move or a blocking move, just make a random move. */
-        makeRandomMove();
+    private ComputerPlayer(String difficulty, char symbol, MoveStrategy strategy, boolean headless,
+                           MoveMetrics metrics) {
+        this.difficulty = difficulty;
+        this.strategy = strategy;
+        this.headless = headless;
+        this.metrics = metrics;
+        super.symbol = symbol;
     }
 
     /**
-     * Compared to the "medium" level difficulty, this level not just go one move ahead to see
-     * an immediate win or prevent an immediate loss. This level can see two moves ahead,
-     * three moves ahead and so on. Basically, it can see all possible outcomes till the end
-     * of the game and choose the best of them considering his opponent also would play perfectly.
-     * So, it doesn't rely on the blunders of the opponent, it plays perfectly regardless of the opponent's skill.
+     * Seed the random numbers of this player, so the same games are played again with the same seed.
+     * The easy and medium levels, and the MCTS level without -Dtictactoe.parallelSearch, are then reproducible.
      */
-    private void makeMoveHard() {
-        int bestNextMoveIndex = minimax(Main.table, this.symbol);
-        Main.table[bestNextMoveIndex] = this.symbol;
+    void seed(long seed) {
+        strategy.seed(seed);
     }
 
     /**
-     * The minimax algorithm. It can see all the outcomes of the current state of the game and decides the best
-     * next move.
-     *
-     * @param newTable: this algorithm makes a virtual game by itself depending on the current state of the
-     *                  table and continues playing until it reaches a terminal state (i.e. a win, lose or draw).
-     *                  So, this table is where this algorithm makes its virtual game.
-     * @param player    : the player symbol (X or O). This algorithm will play its symbol at first
-     *                  then the opponent symbol and so on to reach a terminal state.
-     * @return the index with the highest score (i.e. the best possible index to play).
+     * Make a move by filling an empty cell in the table.
+     * The type of the move depends on the AI difficulty level.
      */
-    private int minimax(int[] newTable, char player) {
-        int[] availSpots = emptyIndexes(newTable);
-
-        char opponentSymbol = this.symbol == 'X' ? 'O' : 'X';
-
-        /* Check for a terminal state such as a win, lose or tie. And return a value accordingly. */
-        if (winning(newTable, this.symbol)) {
-            return 10;
-        } else if (winning(newTable, opponentSymbol)) {
-            return -10;
-        } else if (availSpots.length == 0) {
-            return 0;
-        }
-
-        Move[] moves = new Move[availSpots.length];
-
-        // Loop through available spots.
-        for (int i = 0; i < availSpots.length; i++) {
-            /* Create an object for each empty spot and store the index of that spot. */
-            moves[i] = new Move();
-            moves[i].index = newTable[availSpots[i]];
-
-            // Set the empty spot to the current player (virtual move by the current player).
-            newTable[availSpots[i]] = player;
-
-            /* Collect the score resulted from calling minimax on the opponent. */
-            int result;
-            if (player == this.symbol) {
-                result = minimax(newTable, opponentSymbol);
-            } else {
-                result = minimax(newTable, player);
-            }
-            moves[i].score = result;
-
-            // Reset the spot to empty.
-            newTable[availSpots[i]] = (char) moves[i].index;
-        }
-
-        /* Choose the best move according to the current player:
-         * - If it's aiPlayer, choose the move with the highest score.
-         * - If it's huPlayer, choose the move with the lowest score. */
-        int bestScore;
-        int bestMoveIndex = -1;
-        if (player == this.symbol) {
-            bestScore = Integer.MIN_VALUE;
-            for (int i = 0; i < moves.length; i++) {
-                if (moves[i].score > bestScore) {
-                    bestScore = moves[i].score;
-                    bestMoveIndex = i;
-                }
-            }
-        } else {
-            bestScore = Integer.MAX_VALUE;
-            for (int i = 0; i < moves.length; i++) {
-                if (moves[i].score < bestScore) {
-                    bestScore = moves[i].score;
-                    bestMoveIndex = i;
-                }
+    @Override
+    protected void makeMove(Game game) {
+        if (!headless) {
+            System.out.println("Making move level " + difficulty + " (as " + this.symbol + ").");
+
+            try {
+                Thread.sleep(MOVE_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                System.out.println("Interrupted Exception -> " + Arrays.toString(e.getStackTrace()));
             }
         }
 
-        return moves[bestMoveIndex].index;
+        game.play(chooseMove(game));
     }
 
     /**
-     * Return the empty cells indexes in this table.
+     * Pick a move on another thread, so the calling thread is free while the AI thinks.
+     * The game must not change until the returned future is done.
+     * Unless headless, the move is not ready before the move delay, but the delay doesn't hold any thread.
      *
-     * @param table to check empty cells in.
-     * @return an array of empty cells indexes.
+     * @param executor the threads to think on.
+     * @return the index of the cell to play.
      */
-    private int[] emptyIndexes(int[] table) {
-        int emptyCellsCount = 0;
-        for (int i = 0; i < table.length; i++) {
-            if (Main.isCellEmpty(i)) {
-                emptyCellsCount++;
-            }
+    CompletableFuture<Integer> chooseMoveAsync(Game game, Executor executor) {
+        if (!headless) {
+            System.out.println("Making move level " + difficulty + " (as " + this.symbol + ").");
         }
-
-        int[] result = new int[emptyCellsCount];
-        for (int i = 0, index = 0; i < table.length; i++) {
-            if (Main.isCellEmpty(i)) {
-                result[index] = i;
-                index++;
-            }
-        }
-
-        return result;
+        return delayed(CompletableFuture.supplyAsync(() -> chooseMove(game), executor));
     }
 
     /**
-     * Check if the player with the provided symbol wins (i.e. has 3 symbols in a row) in this specific state of the table.
-     *
-     * @param table:  the current state of the game.
-     * @param symbol: the player symbol to check if he's winning.
-     * @return true if this player wins, otherwise false.
+     * Returns the move that was pondered for the current position (see ponder()) as a future, or picks a move
+     * like chooseMoveAsync() if it wasn't.
      */
-    private boolean winning(int[] table, char symbol) {
-        return (table[0] == symbol && table[1] == symbol && table[2] == symbol) ||
-                (table[3] == symbol && table[4] == symbol && table[5] == symbol) ||
-                (table[6] == symbol && table[7] == symbol && table[8] == symbol) ||
-                (table[0] == symbol && table[3] == symbol && table[6] == symbol) ||
-                (table[1] == symbol && table[4] == symbol && table[7] == symbol) ||
-                (table[2] == symbol && table[5] == symbol && table[8] == symbol) ||
-                (table[0] == symbol && table[4] == symbol && table[8] == symbol) ||
-                (table[2] == symbol && table[4] == symbol && table[6] == symbol);
+    CompletableFuture<Integer> chooseMoveAsync(Game game, Executor executor, Pondering pondering) {
+        int ponderedMove = pondering == null ? -1 : pondering.replyTo(game);
+        if (ponderedMove == -1) {
+            return chooseMoveAsync(game, executor);
+        }
+
+        if (!headless) {
+            System.out.println("Making move level " + difficulty + " (as " + this.symbol + "), thought of already.");
+        }
+        return delayed(CompletableFuture.completedFuture(ponderedMove));
     }
 
     /**
-     * Make a random move on the table.
+     * Returns a future of the same move that's not done before the move delay, unless headless.
      */
-    private void makeRandomMove() {
-        Random random = new Random();
-
-        /* Keep generating random indexes in range [0,8] until you find an empty cell.  */
-        boolean correctMove = false;
-        do {
-            int index = random.nextInt(9);
-            if (isCellEmpty(index)) {
-                Main.table[index] = symbol;
-                correctMove = true;
-            }
-
-        } while (!correctMove);
+    private CompletableFuture<Integer> delayed(CompletableFuture<Integer> move) {
+        if (headless || MOVE_DELAY_MILLIS == 0) {
+            return move;
+        }
+        Executor delay = CompletableFuture.delayedExecutor(MOVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        return move.thenCombine(CompletableFuture.runAsync(() -> { }, delay), (index, ignored) -> index);
     }
 
     /**
-     * Returns the index of a crucial move, if exists. Otherwise, returns -1.
-     * The crucial move might be:
-     * - a winning move: two of the symbols in a row so this method returns the index
-     * of the third cell to win the game.
-     * - a blocking move: two of the opponent's symbol in a row so this method returns the index
-     * of the third cell to stop the win.
+     * Think about the replies to the most likely moves of the opponent on another thread, while the opponent
+     * thinks about its move (see Pondering). It's done by another player of the same level, so it never
+     * competes with this player's own moves for its searches, and without metrics, so the moves it only thought
+     * of aren't counted with the moves played.
      *
-     * @param moveMode: winning or blocking move.
-     * @return the index of a crucial move if exists, otherwise -1.
+     * @param game     the game, where the opponent is to move.
+     * @param executor the threads to think on.
      */
-    private int getCrucialMoveIndex(String moveMode) {
-        /* If the mode is winning, then the symbol to search for (two in a row) should be this symbol.
-         *If the mode is blocking, then the symbol to search for (two in a row) should be opponent's symbol. */
-        char charToSearchFor;
-
-        if (moveMode.equals("winning")) {
-            charToSearchFor = this.symbol;
-        } else if (moveMode.equals("blocking")) {
-            charToSearchFor = this.symbol == 'X' ? 'O' : 'X';
-        } else {
-            throw new IllegalStateException("Unknown move type " + moveMode);
-        }
-
-        /* Check every empty cell and see if filling it would make the AI win or blocking the opponent
-         * from winning. For example, cell 0 is a crucial cell if any of the following is true:
-         * - index 1 and 2 have two of the same symbol.
-         * - index 3 and 6 have two of the same symbol.
-         * - index 4 and 8 have two of the same symbol.
-         */
-
-        // Cell with index 0.
-        if (Main.table[1] == charToSearchFor && Main.table[2] == charToSearchFor ||
-                Main.table[3] == charToSearchFor && Main.table[6] == charToSearchFor ||
-                Main.table[4] == charToSearchFor && Main.table[8] == charToSearchFor) {
-            if (isCellEmpty(0)) {
-                return 0;
-            }
-        }
-
-        // Cell with index 1.
-        if (Main.table[0] == charToSearchFor && Main.table[2] == charToSearchFor ||
-                Main.table[4] == charToSearchFor && Main.table[7] == charToSearchFor) {
-            if (isCellEmpty(1)) {
-                return 1;
-            }
-        }
-
-        // Cell with index 2.
-        if (Main.table[0] == charToSearchFor && Main.table[1] == charToSearchFor ||
-                Main.table[5] == charToSearchFor && Main.table[8] == charToSearchFor ||
-                Main.table[4] == charToSearchFor && Main.table[6] == charToSearchFor) {
-            if (isCellEmpty(2)) {
-                return 2;
-            }
-        }
-
-        // Cell with index 3.
-        if (Main.table[0] == charToSearchFor && Main.table[6] == charToSearchFor ||
-                Main.table[4] == charToSearchFor && Main.table[5] == charToSearchFor) {
-            if (isCellEmpty(3)) {
-                return 3;
-            }
-        }
-
-        // Cell with index 4.
-        if (Main.table[1] == charToSearchFor && Main.table[7] == charToSearchFor ||
-                Main.table[3] == charToSearchFor && Main.table[5] == charToSearchFor) {
-            if (isCellEmpty(4)) {
-                return 4;
-            }
-        }
-
-        // Cell with index 5.
-        if (Main.table[3] == charToSearchFor && Main.table[4] == charToSearchFor ||
-                Main.table[2] == charToSearchFor && Main.table[8] == charToSearchFor) {
-            if (isCellEmpty(5)) {
-                return 5;
-            }
+    Pondering ponder(Game game, Executor executor) {
+        if (ponderer == null) {
+            ponderer = new ComputerPlayer(difficulty, symbol, MoveStrategies.create(difficulty), true, null);
         }
+        pondering = new Pondering(ponderer, game, executor, pondering);
+        return pondering;
+    }
 
-        // Cell with index 6.
-        if (Main.table[0] == charToSearchFor && Main.table[3] == charToSearchFor ||
-                Main.table[7] == charToSearchFor && Main.table[8] == charToSearchFor ||
-                Main.table[2] == charToSearchFor && Main.table[4] == charToSearchFor) {
-            if (isCellEmpty(6)) {
-                return 6;
-            }
-        }
+    /**
+     * Returns the index of the cell to play on the table of this game, according to the AI difficulty level,
+     * without playing it.
+     */
+    int chooseMove(Game game) {
+        if (metrics == null) {
+            return pickMove(game);
+        }
+
+        long hitsBefore = strategy.cacheHits();
+        long missesBefore = strategy.cacheMisses();
+        long start = System.nanoTime();
+        int index = pickMove(game);
+        long nanos = System.nanoTime() - start;
+        metrics.record(nanos, strategy.lastSearchNodes(), strategy.lastSearchDepth(),
+                strategy.cacheHits() - hitsBefore, strategy.cacheMisses() - missesBefore);
+        return index;
+    }
 
-        // Cell with index 7.
-        if (Main.table[1] == charToSearchFor && Main.table[4] == charToSearchFor ||
-                Main.table[6] == charToSearchFor && Main.table[8] == charToSearchFor) {
-            if (isCellEmpty(7)) {
-                return 7;
-            }
-        }
+    /**
+     * Stop the search of this player, or let it search again (see MoveStrategy.setStopped()).
+     */
+    void setStopped(boolean stopped) {
+        strategy.setStopped(stopped);
+    }
 
-        // Cell with index 8.
-        if (Main.table[2] == charToSearchFor && Main.table[5] == charToSearchFor ||
-                Main.table[6] == charToSearchFor && Main.table[7] == charToSearchFor ||
-                Main.table[0] == charToSearchFor && Main.table[4] == charToSearchFor) {
-            if (isCellEmpty(8)) {
-                return 8;
+    private int pickMove(Game game) {
+        int index = strategy.chooseMove(game.grid(), this.symbol);
+        if (!headless) {
+            String description = strategy.describeLastMove();
+            if (description != null) {
+                System.out.println(description);
             }
         }
+        return index;
+    }
 
-        return -1;
+    /**
+     * Returns the score of a won game on this board: the more empty cells left, the faster the win.
+     */
+    static int winScore(int board) {
+        return WIN_SCORE + Board.emptyCount(board);
     }
-}
 
-/**
- * Make a virtual moves on the table (as described in the minimax method) and store each move's
- * index (in the table) and its score (1 for win, -1 for lose and 0 for draw).
- */
-class Move {
-    int index;
-    int score;
+    /**
+     * Returns the index of a random empty cell of the table, which must not be full.
+     * The MCTS playouts pick their moves with it too.
+     */
+    static int randomEmptyCell(Grid grid, SplittableRandom random) {
+        /* A single draw among the empty cells, however few they are. */
+        return grid.emptyCellAt(random.nextInt(grid.emptyCount()));
+    }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
@@ -0,0 +1,373 @@
+package tictactoe;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The hard AI for tables bigger than the classic 3x3, where searching till the end of the game would never finish.
+ * <p>
+ * It runs an alpha-beta search limited to a depth, first one move ahead, then two, three and so on (iterative
+ * deepening), until its time budget runs out. Positions at the depth limit are scored by a heuristic that
+ * counts the lines each player can still complete. The best move of the deepest finished search is played,
+ * and it's tried first by the next, deeper search so that search cuts off more branches.
+ * <p>
+ * A parallel search scores the first root move on the calling thread, then all the other root moves at once as
+ * fork-join tasks, each one on its own copy of the table. The tasks only need to know whether they beat the first
+ * move, and the best move is the first one in order with the highest score, so the parallel search picks the same
+ * move as the sequential search at every depth both finish.
+ */
+final class DeepeningSearch {
+
+    /* The score of a won game, far above any heuristic score. Every empty cell left adds one,
+     * so faster wins score higher. */
+    static final int WIN_SCORE = 1 << 28;
+
+    /* The time is checked once every this many positions. */
+    private static final int TIME_CHECK_INTERVAL = 1 << 10;
+
+    /* Only the empty cells at most this far (in rows and columns) from a taken cell are searched on big tables. */
+    private static final int BIG_TABLE_SIZE = 7;
+
+    /* Returned by a root task that ran out of time. */
+    private static final int TIMED_OUT = Integer.MIN_VALUE;
+
+    private final long budgetNanos;
+    private final int maxDepth;
+    private final boolean parallel;
+
+    /* The searches of the root tasks, one per pool thread, reused across moves. */
+    private final ThreadLocal<DeepeningSearch> helpers;
+    private final AtomicLong helperNodes = new AtomicLong();
+
+    /* Set from another thread to stop the search early (see setStopped()), shared with the helpers. */
+    private final AtomicBoolean stopped;
+
+    private Grid grid;
+    private long deadline;
+    private boolean timeUp;
+    private long nodes;
+    private int depth;
+
+    /* Candidate moves and their ordering scores, one buffer per depth (allocated the first time the search gets
+     * that deep) so no search allocates. */
+    private int[][] moveBuffers;
+    private int[][] orderBuffers;
+
+    /**
+     * Create a search.
+     *
+     * @param budgetMillis the time it may think about a move, in milliseconds.
+     * @param maxDepth     the deepest search to run, in moves, whatever time is left.
+     * @param parallel     whether the root moves are searched at once on the common fork-join pool.
+     */
+    DeepeningSearch(long budgetMillis, int maxDepth, boolean parallel) {
+        this(budgetMillis, maxDepth, parallel, new AtomicBoolean());
+    }
+
+    private DeepeningSearch(long budgetMillis, int maxDepth, boolean parallel, AtomicBoolean stopped) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.maxDepth = maxDepth;
+        this.parallel = parallel;
+        this.stopped = stopped;
+        this.helpers = parallel
+                ? ThreadLocal.withInitial(() -> new DeepeningSearch(budgetMillis, maxDepth, false, stopped)) : null;
+    }
+
+    /**
+     * Create a search that goes as deep as its time budget allows.
+     *
+     * @param budgetMillis the time it may think about a move, in milliseconds.
+     * @param parallel     whether the root moves are searched at once on the common fork-join pool.
+     */
+    DeepeningSearch(long budgetMillis, boolean parallel) {
+        this(budgetMillis, Integer.MAX_VALUE, parallel);
+    }
+
+    /**
+     * Create a sequential search that goes as deep as its time budget allows.
+     *
+     * @param budgetMillis the time it may think about a move, in milliseconds.
+     */
+    DeepeningSearch(long budgetMillis) {
+        this(budgetMillis, false);
+    }
+
+    /**
+     * Returns the index of the best cell to play on this table for this player, found within the time budget.
+     * The table is not changed.
+     */
+    int bestMove(Grid table, char player) {
+        deadline = System.nanoTime() + budgetNanos;
+        timeUp = false;
+        nodes = 0;
+        helperNodes.set(0);
+        setTable(table);
+
+        int[] rootMoves = moveBuffer(0);
+        int rootCount = generateMoves(player, rootMoves, orderBuffers[0]);
+        int bestMove = rootMoves[0];
+        depth = 0;
+
+        for (int depth = 1; depth <= Math.min(grid.emptyCount(), maxDepth); depth++) {
+            /* Score the first move, then the others only as far as needed to know if they beat it. */
+            int alpha = searchRootMove(rootMoves[0], player, depth, -Integer.MAX_VALUE);
+            int depthBestMove = rootMoves[0];
+            if (parallel && rootCount > 1 && !timeUp) {
+                int[] scores = searchRootMovesInParallel(rootMoves, rootCount, player, depth, alpha);
+                for (int i = 1; i < rootCount && !timeUp; i++) {
+                    if (scores[i] == TIMED_OUT) {
+                        timeUp = true;
+                    } else if (scores[i] > alpha) {
+                        alpha = scores[i];
+                        depthBestMove = rootMoves[i];
+                    }
+                }
+            } else {
+                for (int i = 1; i < rootCount && !timeUp; i++) {
+                    int score = searchRootMove(rootMoves[i], player, depth, alpha);
+                    if (!timeUp && score > alpha) {
+                        alpha = score;
+                        depthBestMove = rootMoves[i];
+                    }
+                }
+            }
+            if (timeUp) {
+                break;
+            }
+
+            bestMove = depthBestMove;
+            this.depth = depth;
+            /* A decided game won't change with a deeper search. */
+            if (Math.abs(alpha) >= WIN_SCORE) {
+                break;
+            }
+            moveToFront(rootMoves, rootCount, bestMove);
+        }
+
+        nodes += helperNodes.get();
+        return bestMove;
+    }
+
+    /**
+     * Score one root move, as far as needed to know whether it beats alpha.
+     */
+    private int searchRootMove(int index, char player, int depth, int alpha) {
+        grid.place(index, player);
+        int score = -search(depth - 1, 1, Board.opponent(player), -Integer.MAX_VALUE, -alpha);
+        grid.remove(index);
+        return score;
+    }
+
+    /**
+     * Score all the root moves but the first one at once, each one on a pool thread with its own copy of the table.
+     *
+     * @return the scores by root move, where a score not above alpha is only a bound, or TIMED_OUT.
+     */
+    private int[] searchRootMovesInParallel(int[] rootMoves, int rootCount, char player, int depth, int alpha) {
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[rootCount];
+        int[] scores = new int[rootCount];
+        for (int i = 1; i < rootCount; i++) {
+            int task = i;
+            tasks[i] = ForkJoinPool.commonPool().submit(() -> {
+                DeepeningSearch helper = helpers.get();
+                helper.deadline = deadline;
+                helper.timeUp = false;
+                helper.nodes = 0;
+                helper.setTable(grid);
+                int score = helper.searchRootMove(rootMoves[task], player, depth, alpha);
+                helperNodes.addAndGet(helper.nodes);
+                scores[task] = helper.timeUp ? TIMED_OUT : score;
+            });
+        }
+        for (int i = 1; i < rootCount; i++) {
+            tasks[i].join();
+        }
+        return scores;
+    }
+
+    /**
+     * Search on a copy of this table from now on, with buffers sized for it.
+     */
+    private void setTable(Grid table) {
+        if (grid != null && grid.size() == table.size() && grid.k() == table.k()) {
+            grid.copyFrom(table);
+        } else {
+            grid = table.copy();
+        }
+        if (moveBuffers == null || moveBuffers.length != grid.cellCount() + 1) {
+            moveBuffers = new int[grid.cellCount() + 1][];
+            orderBuffers = new int[grid.cellCount() + 1][];
+        }
+    }
+
+    private int[] moveBuffer(int ply) {
+        if (moveBuffers[ply] == null) {
+            moveBuffers[ply] = new int[grid.cellCount()];
+            orderBuffers[ply] = new int[grid.cellCount()];
+        }
+        return moveBuffers[ply];
+    }
+
+    /**
+     * Stop the searches, or let them run again. While stopped, a search returns the best move of the deepest
+     * search it finished so far, or the first move in order if none, as if its time ran out. It may be called from
+     * another thread than the one searching.
+     */
+    void setStopped(boolean stopped) {
+        this.stopped.set(stopped);
+    }
+
+    /**
+     * Returns the number of positions visited by the last call to bestMove().
+     */
+    long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the depth of the deepest search finished by the last call to bestMove(), in moves.
+     */
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * Alpha-beta search from the point of view of the player to move, limited to this depth.
+     *
+     * @return the score of the table for the player to move, or 0 if the time ran out.
+     */
+    private int search(int depth, int ply, char player, int alpha, int beta) {
+        if (++nodes % TIME_CHECK_INTERVAL == 0 && (System.nanoTime() > deadline || stopped.get())) {
+            timeUp = true;
+        }
+        if (timeUp) {
+            return 0;
+        }
+
+        /* Only the opponent, who made the last move, might have won. */
+        if (grid.winner() != Grid.EMPTY) {
+            return -(WIN_SCORE + grid.emptyCount());
+        } else if (grid.isFull()) {
+            return 0;
+        } else if (depth == 0) {
+            return evaluate(player);
+        }
+
+        int[] moves = moveBuffer(ply);
+        int count = generateMoves(player, moves, orderBuffers[ply]);
+        int bestScore = -Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            grid.place(moves[i], player);
+            int score = -search(depth - 1, ply + 1, Board.opponent(player), -beta, -alpha);
+            grid.remove(moves[i]);
+            if (score > bestScore) {
+                bestScore = score;
+                alpha = Math.max(alpha, score);
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Score the table for the player to move: every line that only one player has symbols on is worth more
+     * the more symbols it has, for that player.
+     */
+    private int evaluate(char player) {
+        char opponent = Board.opponent(player);
+        int score = 0;
+        for (int line = 0; line < grid.lines().length; line++) {
+            int own = grid.countInLine(line, player);
+            int opponents = grid.countInLine(line, opponent);
+            if (opponents == 0) {
+                score += lineWeight(own);
+            } else if (own == 0) {
+                score -= lineWeight(opponents);
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Returns the worth of a line with this many symbols of one player only.
+     */
+    private static int lineWeight(int count) {
+        return count == 0 ? 0 : 1 << Math.min(3 * count, 16);
+    }
+
+    /**
+     * Collect the empty cells worth searching into moves, most promising first, and return their number.
+     * A cell is promising when it's on lines where one player already has many symbols. On big tables, only
+     * the cells next to a taken cell are collected, and the center when the table is empty.
+     */
+    private int generateMoves(char player, int[] moves, int[] order) {
+        int size = grid.size();
+        int radius = size > BIG_TABLE_SIZE ? 1 : size;
+        char opponent = Board.opponent(player);
+
+        int count = 0;
+        for (int index = 0; index < grid.cellCount(); index++) {
+            if (!grid.isCellEmpty(index) || !hasNeighbour(index, radius)) {
+                continue;
+            }
+
+            int score = 0;
+            for (int line : grid.linesThrough(index)) {
+                int own = grid.countInLine(line, player);
+                int opponents = grid.countInLine(line, opponent);
+                if (opponents == 0) {
+                    /* Own lines weigh a bit more: completing a line beats blocking one. */
+                    score += 2 * lineWeight(own + 1);
+                } else if (own == 0) {
+                    score += lineWeight(opponents + 1);
+                }
+            }
+
+            /* Insertion sort by decreasing score. */
+            int i = count++;
+            for (; i > 0 && order[i - 1] < score; i--) {
+                moves[i] = moves[i - 1];
+                order[i] = order[i - 1];
+            }
+            moves[i] = index;
+            order[i] = score;
+        }
+
+        if (count == 0) {
+            moves[0] = size / 2 * size + size / 2;
+            count = 1;
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if there's a taken cell at most radius rows and columns away from this cell.
+     */
+    private boolean hasNeighbour(int index, int radius) {
+        int size = grid.size();
+        int row = index / size;
+        int column = index % size;
+        for (int r = Math.max(0, row - radius); r <= Math.min(size - 1, row + radius); r++) {
+            for (int c = Math.max(0, column - radius); c <= Math.min(size - 1, column + radius); c++) {
+                if (!grid.isCellEmpty(r * size + c)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void moveToFront(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+}
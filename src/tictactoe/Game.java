@@ -0,0 +1,117 @@
+package tictactoe;
+
+/**
+ * One game: its own table, whose turn it is and the moves played so far. Games share nothing, so many of them
+ * can be played at once.
+ */
+final class Game {
+
+    private final Grid grid;
+
+    /* The symbol of the player to move. X always plays first. */
+    private char turn = 'X';
+
+    /* The cells played so far, in order. */
+    private final int[] moves;
+    private int moveCount;
+
+    /**
+     * Create a game on an empty size x size table, where k symbols in a row win.
+     */
+    Game(int size, int k) {
+        this.grid = new Grid(size, k);
+        this.moves = new int[grid.cellCount()];
+    }
+
+    /**
+     * Create a game on the classic 3x3 table.
+     */
+    Game() {
+        this(3, 3);
+    }
+
+    /**
+     * Returns a copy of this game, with the same moves played, that can be played on independently.
+     */
+    Game copy() {
+        Game copy = new Game(grid.size(), grid.k());
+        for (int move = 0; move < moveCount; move++) {
+            copy.play(moves[move]);
+        }
+        return copy;
+    }
+
+    /**
+     * Start the game over on the same table, emptied.
+     */
+    void reset() {
+        grid.clear();
+        turn = 'X';
+        moveCount = 0;
+    }
+
+    Grid grid() {
+        return grid;
+    }
+
+    /**
+     * Returns the symbol of the player to move.
+     */
+    char turn() {
+        return turn;
+    }
+
+    boolean isCellEmpty(int index) {
+        return grid.isCellEmpty(index);
+    }
+
+    /**
+     * Place the symbol of the player to move on the cell with this index, which must be empty,
+     * and pass the turn to the other player.
+     */
+    void play(int index) {
+        grid.place(index, turn);
+        turn = Board.opponent(turn);
+        moves[moveCount++] = index;
+    }
+
+    int moveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns the index of the cell played by the move with this number, the first move being 0.
+     */
+    int moveAt(int move) {
+        return moves[move];
+    }
+
+    /**
+     * Returns the state of the game, which can be one of four possible values:
+     * - Game not finished.
+     * - Draw.
+     * - X wins.
+     * - O wins.
+     * The table keeps track of the winner as the moves are made, so nothing is scanned here.
+     */
+    GameState state() {
+        char winner = grid.winner();
+        if (winner == 'X') {
+            return GameState.X_WINS;
+        }
+
+        if (winner == 'O') {
+            return GameState.O_WINS;
+        }
+
+        if (grid.isFull()) {
+            return GameState.DRAW;
+        }
+
+        return GameState.NOT_FINISHED;
+    }
+
+    boolean isOver() {
+        return grid.winner() != Grid.EMPTY || grid.isFull();
+    }
+}
@@ -0,0 +1,15 @@
+package tictactoe;
+
+/**
+ * The games finished and how they ended, as a JMX MBean (see Metrics).
+ */
+public interface GameMetricsMBean {
+
+    long getGamesCompleted();
+
+    long getXWins();
+
+    long getOWins();
+
+    long getDraws();
+}
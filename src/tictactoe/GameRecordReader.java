@@ -0,0 +1,203 @@
+package tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file of game records (see GameRecordWriter) one record at a time, through a small buffer, so files of
+ * any size are read in constant memory:
+ * <pre>
+ * try (GameRecordReader reader = new GameRecordReader(path)) {
+ *     while (reader.next()) {
+ *         GameState result = reader.result();
+ *     }
+ * }
+ * </pre>
+ * The current record is kept in the reader and overwritten by the next one, so reading allocates nothing.
+ */
+final class GameRecordReader implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private static final GameState[] RESULTS = GameState.values();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    /* The current record. */
+    private int size;
+    private int k;
+    private int playerX;
+    private int playerO;
+    private GameState result;
+    private int moveCount;
+    private final int[] moves = new int[Grid.MAX_SIZE * Grid.MAX_SIZE];
+
+    /**
+     * Open this file of game records.
+     *
+     * @throws IOException if the file can't be opened, or isn't a file of game records.
+     */
+    GameRecordReader(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            checkHeader(channel, path);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        bytes.limit(0);
+    }
+
+    /**
+     * Check the header of this file of game records and leave the channel right after it.
+     *
+     * @throws IOException if the file doesn't start with the header of a file of game records.
+     */
+    static void checkHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(GameRecordWriter.HEADER_BYTES);
+        channel.position(0);
+        while (header.hasRemaining()) {
+            if (channel.read(header) < 0) {
+                break;
+            }
+        }
+        header.flip();
+        if (header.remaining() < GameRecordWriter.HEADER_BYTES || header.getInt() != GameRecordWriter.MAGIC) {
+            throw new IOException(path + " is not a file of game records");
+        }
+        byte version = header.get();
+        if (version != GameRecordWriter.VERSION) {
+            throw new IOException(path + " has game records of version " + version + ", expected " +
+                    GameRecordWriter.VERSION);
+        }
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return false if there are no more records.
+     * @throws IOException if the file can't be read or ends in the middle of a record.
+     */
+    boolean next() throws IOException {
+        if (!fill(GameRecordWriter.RECORD_HEADER_BYTES)) {
+            if (bytes.hasRemaining()) {
+                throw new IOException(path + " ends in the middle of a record");
+            }
+            return false;
+        }
+
+        size = Byte.toUnsignedInt(bytes.get());
+        k = Byte.toUnsignedInt(bytes.get());
+        playerX = bytes.get();
+        playerO = bytes.get();
+        int resultCode = bytes.get();
+        moveCount = Short.toUnsignedInt(bytes.getShort());
+        if (size < Grid.MIN_SIZE || size > Grid.MAX_SIZE || k < 3 || k > size || moveCount > size * size ||
+                resultCode < 0 || resultCode >= RESULTS.length || !isPlayerCode(playerX) || !isPlayerCode(playerO)) {
+            throw new IOException(path + " has a corrupt record");
+        }
+        result = RESULTS[resultCode];
+
+        boolean twoBytes = size * size > GameRecordWriter.MAX_ONE_BYTE_CELLS;
+        if (!fill(moveCount * (twoBytes ? 2 : 1))) {
+            throw new IOException(path + " ends in the middle of a record");
+        }
+        for (int move = 0; move < moveCount; move++) {
+            moves[move] = twoBytes ? Short.toUnsignedInt(bytes.getShort()) : Byte.toUnsignedInt(bytes.get());
+        }
+        return true;
+    }
+
+    /**
+     * Read from the file until the buffer holds at least this many bytes.
+     *
+     * @return false if the file ended before.
+     */
+    private boolean fill(int needed) throws IOException {
+        if (bytes.remaining() >= needed) {
+            return true;
+        }
+        bytes.compact();
+        while (bytes.position() < needed) {
+            if (channel.read(bytes) < 0) {
+                bytes.flip();
+                return false;
+            }
+        }
+        bytes.flip();
+        return true;
+    }
+
+    private static boolean isPlayerCode(int code) {
+        return code >= 0 && code < GameRecordWriter.PLAYER_TYPES.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int k() {
+        return k;
+    }
+
+    /**
+     * Returns the code of the X player, its index in GameRecordWriter.PLAYER_TYPES.
+     */
+    int playerXCode() {
+        return playerX;
+    }
+
+    /**
+     * Returns the code of the O player, its index in GameRecordWriter.PLAYER_TYPES.
+     */
+    int playerOCode() {
+        return playerO;
+    }
+
+    GameState result() {
+        return result;
+    }
+
+    int moveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns the index of the cell played by the move with this number, the first move being 0.
+     */
+    int moveAt(int move) {
+        return moves[move];
+    }
+
+    /**
+     * Play the moves of the current record on this game, which is reset first and must have the same table size
+     * and K.
+     *
+     * @throws IOException if the moves aren't legal, or don't lead to the recorded result.
+     */
+    void replay(Game game) throws IOException {
+        game.reset();
+        for (int move = 0; move < moveCount; move++) {
+            int index = moves[move];
+            if (index >= game.grid().cellCount() || !game.isCellEmpty(index) || game.isOver()) {
+                throw new IOException(path + " has a record with an illegal move");
+            }
+            game.play(index);
+        }
+        if (game.state() != result) {
+            throw new IOException(path + " has a record whose moves end in " + game.state() + ", not " + result);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,160 @@
+package tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends finished games to a file of game records, in a compact binary format:
+ * <pre>
+ * file:   MAGIC (4 bytes) VERSION (1 byte) record*
+ * record: size (1 byte) k (1 byte) playerX (1 byte) playerO (1 byte) result (1 byte) moves (2 bytes) cell*
+ * </pre>
+ * The players are indexes in PLAYER_TYPES, the result is the ordinal of the GameState and every cell played is
+ * one byte, or two bytes on tables of more than 256 cells. Numbers of two bytes are big-endian.
+ * A 3x3 game takes 7 bytes plus one per move.
+ * <p>
+ * The records are encoded into buffers (see newBuffer()), one per thread, and each full buffer is written to the
+ * file channel at once, so many threads can record their games with little contention. A buffer only holds whole
+ * records, so the records of different threads never mix.
+ */
+final class GameRecordWriter implements Closeable {
+
+    static final int MAGIC = 0x54545452; // "TTTR"
+    static final byte VERSION = 1;
+
+    /* The player types, by their code in the records. */
+    static final String[] PLAYER_TYPES = {"user", "easy", "medium", "hard", "mcts"};
+
+    /* The tables with more cells than this need two bytes per cell. */
+    static final int MAX_ONE_BYTE_CELLS = 256;
+
+    static final int HEADER_BYTES = 5;
+    static final int RECORD_HEADER_BYTES = 7;
+
+    /* Big enough for the longest record, on the biggest table. */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+
+    /**
+     * Open this file to append records to it, and create it if it doesn't exist.
+     *
+     * @throws IOException if the file can't be opened, or isn't a file of game records.
+     */
+    GameRecordWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).put(VERSION);
+                writeFully(header.flip());
+            } else {
+                GameRecordReader.checkHeader(channel, path);
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a new buffer to encode records into, for one thread.
+     */
+    Buffer newBuffer() {
+        return new Buffer();
+    }
+
+    private synchronized void write(ByteBuffer records) throws IOException {
+        writeFully(records);
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns whether the games of this player type can be recorded. Only the player types of PLAYER_TYPES can,
+     * not the strategies added to the registry (see MoveStrategies).
+     */
+    static boolean isRecorded(String playerType) {
+        for (String recorded : PLAYER_TYPES) {
+            if (recorded.equals(playerType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the code of this player type in the records.
+     *
+     * @throws IllegalArgumentException if there's no player of this type.
+     */
+    static int playerCode(String playerType) {
+        for (int code = 0; code < PLAYER_TYPES.length; code++) {
+            if (PLAYER_TYPES[code].equals(playerType)) {
+                return code;
+            }
+        }
+        throw new IllegalArgumentException("Unknown player type " + playerType);
+    }
+
+    /**
+     * Encodes the records of one thread, and writes them to the file when full. It's not thread-safe.
+     */
+    final class Buffer {
+
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        private Buffer() {
+        }
+
+        /**
+         * Add the record of this finished game, played by these player types.
+         *
+         * @throws IOException if a full buffer couldn't be written.
+         */
+        void add(Game game, String playerX, String playerO) throws IOException {
+            Grid grid = game.grid();
+            int cellBytes = grid.cellCount() > MAX_ONE_BYTE_CELLS ? 2 : 1;
+            if (bytes.remaining() < RECORD_HEADER_BYTES + cellBytes * game.moveCount()) {
+                flush();
+            }
+
+            bytes.put((byte) grid.size())
+                    .put((byte) grid.k())
+                    .put((byte) playerCode(playerX))
+                    .put((byte) playerCode(playerO))
+                    .put((byte) game.state().ordinal())
+                    .putShort((short) game.moveCount());
+            for (int move = 0; move < game.moveCount(); move++) {
+                if (cellBytes == 1) {
+                    bytes.put((byte) game.moveAt(move));
+                } else {
+                    bytes.putShort((short) game.moveAt(move));
+                }
+            }
+        }
+
+        /**
+         * Write the records added so far to the file.
+         */
+        void flush() throws IOException {
+            bytes.flip();
+            write(bytes);
+            bytes.clear();
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hosts many games at once over TCP, one per connection, with a line protocol. The client sends:
+ * <pre>
+ * start &lt;playerX&gt; &lt;playerO&gt; [size] [k]   start a game, where "user" is the client
+ * &lt;index&gt;                                 play on the cell with this index
+ * quit                                    close the connection
+ * </pre>
+ * and the server answers with:
+ * <pre>
+ * MOVE &lt;symbol&gt; &lt;index&gt;   a move of the AI
+ * BOARD &lt;cells&gt;           the table row by row, X, O or _ for an empty cell
+ * TURN &lt;symbol&gt;           the client is to move, with this symbol
+ * OVER &lt;state&gt;            the game is over: X_WINS, O_WINS or DRAW
+ * ERROR &lt;message&gt;         the last line was not understood, or not allowed now
+ * </pre>
+ * All the connections are served by one thread with a selector. The AI moves are picked on a pool with a thread
+ * per core, and handed back to the selector thread, so a session is only ever changed by the selector thread and
+ * a slow AI never holds the other sessions. The AI players are shared by all the sessions picking their moves on
+ * the same pool thread, so their caches and search buffers are shared too, without locking.
+ */
+final class GameServer {
+
+    static final int DEFAULT_PORT = 7777;
+
+    private static final int BACKLOG = 4096;
+    private static final int MAX_LINE_BYTES = 256;
+
+    /* The most bytes queued to a client that doesn't read them, above which its session is closed. */
+    private static final int MAX_PENDING_BYTES = 64 * MAX_LINE_BYTES;
+
+    /* The difficulty index of the client, who plays as "user". */
+    private static final int USER = -1;
+
+    /* How often the number of sessions and games is printed, when it changed. */
+    private static final long STATUS_MILLIS = 10_000L;
+
+    private final int port;
+    private final Selector selector;
+
+    /* The AI difficulties, the names of the strategies, whose indexes stand for them in the sessions. */
+    private final String[] difficulties = MoveStrategies.providers().stream()
+            .map(MoveStrategyProvider::name)
+            .toArray(String[]::new);
+
+    /* The threads the AI moves are picked on, and their AI players by difficulty index, then X and O. */
+    private final ExecutorService aiThreads;
+    private final ThreadLocal<ComputerPlayer[][]> players =
+            ThreadLocal.withInitial(() -> new ComputerPlayer[difficulties.length][2]);
+
+    /* The AI moves picked, to be played by the selector thread. */
+    private final Queue<Runnable> pickedMoves = new ConcurrentLinkedQueue<>();
+
+    private int sessions;
+    private long gamesPlayed;
+
+    GameServer(int port) throws IOException {
+        this.port = port;
+        this.selector = Selector.open();
+        this.aiThreads = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "ai");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Serve the connections until the thread is interrupted.
+     */
+    void run() throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port), BACKLOG);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Serving games on port " + port + ".");
+
+            long nextStatus = System.currentTimeMillis() + STATUS_MILLIS;
+            long lastGamesPlayed = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                selector.select(STATUS_MILLIS);
+                if (System.currentTimeMillis() >= nextStatus) {
+                    if (gamesPlayed != lastGamesPlayed) {
+                        System.out.println(sessions + " sessions, " + gamesPlayed + " games played.");
+                        lastGamesPlayed = gamesPlayed;
+                    }
+                    nextStatus = System.currentTimeMillis() + STATUS_MILLIS;
+                }
+
+                for (Runnable pickedMove = pickedMoves.poll(); pickedMove != null; pickedMove = pickedMoves.poll()) {
+                    pickedMove.run();
+                }
+
+                for (SelectionKey key : selector.selectedKeys()) {
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept(server);
+                        } else {
+                            Session session = (Session) key.attachment();
+                            if (key.isReadable()) {
+                                session.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                session.write();
+                            }
+                        }
+                    } catch (IOException e) {
+                        if (key.attachment() != null) {
+                            ((Session) key.attachment()).close();
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } finally {
+            aiThreads.shutdownNow();
+            selector.close();
+        }
+    }
+
+    private void accept(ServerSocketChannel server) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Session session = new Session(channel);
+        session.key = channel.register(selector, SelectionKey.OP_READ, session);
+        sessions++;
+    }
+
+    /**
+     * Returns the index of this player type in difficulties, or USER for the client.
+     */
+    private int difficultyIndex(String playerType) {
+        for (int i = 0; i < difficulties.length; i++) {
+            if (difficulties[i].equals(playerType)) {
+                return i;
+            }
+        }
+        return USER;
+    }
+
+    /**
+     * Returns the AI player of the current pool thread with the difficulty at this index and this symbol.
+     */
+    private ComputerPlayer player(int difficulty, char symbol) {
+        ComputerPlayer[] bySymbol = players.get()[difficulty];
+        int side = symbol == 'X' ? 0 : 1;
+        if (bySymbol[side] == null) {
+            bySymbol[side] = new ComputerPlayer(difficulties[difficulty], symbol, true);
+        }
+        return bySymbol[side];
+    }
+
+    /**
+     * One connection and its game. Only used by the selector thread.
+     */
+    private final class Session {
+
+        private final SocketChannel channel;
+        private SelectionKey key;
+
+        private final ByteBuffer in = ByteBuffer.allocate(MAX_LINE_BYTES);
+        private ByteBuffer out = ByteBuffer.allocate(1024);
+
+        private Game game;
+        private final String[] playerTypes = new String[2];
+
+        /* The difficulty indexes of the players (see difficultyIndex()), X then O, looked up once per game. */
+        private final int[] difficultyIndexes = new int[2];
+
+        /* Whether an AI move is being picked, during which the game doesn't change. */
+        private boolean thinking;
+        private boolean closed;
+
+        Session(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+
+            in.flip();
+            int lineStart = 0;
+            for (int i = 0; i < in.limit(); i++) {
+                if (in.get(i) == '\n') {
+                    String line = new String(in.array(), lineStart, i - lineStart, StandardCharsets.US_ASCII);
+                    handle(line.trim());
+                    lineStart = i + 1;
+                    if (closed) {
+                        return;
+                    }
+                }
+            }
+            in.position(lineStart);
+            in.compact();
+            if (!in.hasRemaining()) {
+                send("ERROR Line too long");
+                in.clear();
+            }
+        }
+
+        private void handle(String line) {
+            String[] params = line.split(" ");
+            if (params[0].equals("quit")) {
+                close();
+            } else if (thinking) {
+                send("ERROR Wait for the AI move");
+            } else if (params[0].equals("start")) {
+                start(params);
+            } else if (!params[0].isEmpty()) {
+                playUserMove(params[0]);
+            }
+        }
+
+        private void start(String[] params) {
+            if (params.length < 3 || params.length > 5 || !Main.validPlayerType(params[1]) ||
+                    !Main.validPlayerType(params[2])) {
+                send("ERROR Bad parameters, expected start <playerX> <playerO> [size] [k]");
+                return;
+            }
+
+            try {
+                int size = params.length > 3 ? Integer.parseInt(params[3]) : 3;
+                int k = params.length > 4 ? Integer.parseInt(params[4]) : Math.min(size, 5);
+                if (game != null && game.grid().size() == size && game.grid().k() == k) {
+                    game.reset();
+                } else {
+                    game = new Game(size, k);
+                }
+            } catch (IllegalArgumentException e) {
+                send("ERROR The size should be from " + Grid.MIN_SIZE + " to " + Grid.MAX_SIZE +
+                        " and K from 3 to the size");
+                return;
+            }
+
+            playerTypes[0] = params[1];
+            playerTypes[1] = params[2];
+            difficultyIndexes[0] = difficultyIndex(params[1]);
+            difficultyIndexes[1] = difficultyIndex(params[2]);
+            sendBoard();
+            nextTurn();
+        }
+
+        private void playUserMove(String move) {
+            if (game == null || game.isOver()) {
+                send("ERROR No game in progress, start one first");
+                return;
+            }
+
+            int index;
+            try {
+                index = Integer.parseInt(move);
+            } catch (NumberFormatException e) {
+                send("ERROR Unknown command " + move);
+                return;
+            }
+            if (index < 0 || index >= game.grid().cellCount()) {
+                send("ERROR Index should be from 0 to " + (game.grid().cellCount() - 1));
+            } else if (!game.isCellEmpty(index)) {
+                send("ERROR This cell is occupied");
+            } else {
+                game.play(index);
+                sendBoard();
+                nextTurn();
+            }
+        }
+
+        /**
+         * Tell the client the game is over or it's its turn, or have the AI pick its move.
+         */
+        private void nextTurn() {
+            if (game.isOver()) {
+                send("OVER " + game.state().name());
+                gamesPlayed++;
+                if (Metrics.ENABLED) {
+                    Metrics.gameOver(game.state());
+                }
+                return;
+            }
+
+            char turn = game.turn();
+            int side = turn == 'X' ? 0 : 1;
+            int difficulty = difficultyIndexes[side];
+            if (difficulty == USER) {
+                send("TURN " + turn);
+                return;
+            }
+
+            String playerType = playerTypes[side];
+            thinking = true;
+            aiThreads.execute(() -> {
+                try {
+                    int index = player(difficulty, turn).chooseMove(game);
+                    pickedMoves.add(() -> playAiMove(turn, index));
+                } catch (RuntimeException e) {
+                    System.out.println("The " + playerType + " AI failed to pick a move: " + e);
+                    pickedMoves.add(this::abortGame);
+                }
+                selector.wakeup();
+            });
+        }
+
+        /**
+         * End the game the AI failed to pick a move in. The client may start another one.
+         */
+        private void abortGame() {
+            thinking = false;
+            game = null;
+            send("ERROR The AI failed to pick a move, start a new game");
+        }
+
+        private void playAiMove(char symbol, int index) {
+            thinking = false;
+            if (closed) {
+                return;
+            }
+            game.play(index);
+            send("MOVE " + symbol + " " + index);
+            sendBoard();
+            nextTurn();
+        }
+
+        private void sendBoard() {
+            Grid grid = game.grid();
+            StringBuilder board = new StringBuilder(6 + grid.cellCount()).append("BOARD ");
+            for (int i = 0; i < grid.cellCount(); i++) {
+                board.append(grid.isCellEmpty(i) ? '_' : grid.symbolAt(i));
+            }
+            send(board.toString());
+        }
+
+        /**
+         * Queue this line to the client and write as much as the connection takes now. A client that stopped
+         * reading is dropped once MAX_PENDING_BYTES are queued to it.
+         */
+        private void send(String line) {
+            if (closed) {
+                return;
+            }
+            byte[] bytes = (line + "\n").getBytes(StandardCharsets.US_ASCII);
+            if (out.remaining() < bytes.length) {
+                int needed = out.position() + bytes.length;
+                if (needed > MAX_PENDING_BYTES) {
+                    close();
+                    return;
+                }
+                ByteBuffer bigger = ByteBuffer.allocate(Math.min(Math.max(2 * out.capacity(), needed),
+                        MAX_PENDING_BYTES));
+                out.flip();
+                out = bigger.put(out);
+            }
+            out.put(bytes);
+            try {
+                write();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void write() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            sessions--;
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Closed anyway.
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package tictactoe;
+
+/**
+ * The state of a game.
+ */
+enum GameState {
+
+    NOT_FINISHED("Game not finished"),
+    DRAW("Draw"),
+    X_WINS("X wins"),
+    O_WINS("O wins");
+
+    private final String text;
+
+    GameState(String text) {
+        this.text = text;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,394 @@
+package tictactoe;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Walks the whole game tree of the 3x3 table from the empty board and prints what it finds: the positions and the
+ * finished games after every number of moves, how all the possible games end, and the value and best moves of
+ * every position.
+ * <p>
+ * Positions that only differ by a symmetry (see Board.canonical()) have the same subtree, so only the canonical
+ * positions are analyzed, each one once. They are analyzed level by level, from the full tables up to the empty
+ * table, every position of a level in parallel from the results of the level below.
+ * <p>
+ * The values and the best moves come from the solved table (see SolvedTable), the one solver of the 3x3 game, which
+ * the analysis checks: the value of every reachable position must be the best of the negated values of the
+ * positions it leads to, and the value of its canonical position. The table then serves as an oracle for the hard
+ * AI: from every reachable position, the move it picks with each search mode must be one of the best moves, and
+ * the batch evaluator (see PositionEvaluator) must pick the very move of the minimax search.
+ */
+final class GameTreeAnalysis {
+
+    /* Every bitboard, whether it's legal or not. */
+    private static final int BOARDS = 1 << 2 * Board.CELLS;
+
+    /* The number of symbols on a table, from 0 to 9. */
+    private static final int LEVELS = Board.CELLS + 1;
+
+    /* The game counters of a position: the games that can be played from it, by result then by length. */
+    private static final GameState[] RESULTS = {GameState.X_WINS, GameState.O_WINS, GameState.DRAW};
+    private static final int COUNTERS = RESULTS.length * LEVELS;
+
+    /* The positions reachable from the empty board, with no symmetry applied: whether each bitboard was reached,
+     * and the positions and the finished games by number of symbols. */
+    private final boolean[] reached = new boolean[BOARDS];
+    private final long[] positions = new long[LEVELS];
+    private final long[][] finishedPositions = new long[RESULTS.length][LEVELS];
+
+    /* The canonical positions by number of symbols. */
+    private final int[][] levels = new int[LEVELS][];
+
+    /* The game counters of every canonical position, COUNTERS per position, at the slot of the position. */
+    private final int[] slots = new int[BOARDS];
+    private long[] games;
+
+    /**
+     * Analyze the game tree, check the hard AI against it and print the results.
+     *
+     * @param file the file to write every position with its value and best moves to, or null not to write them.
+     */
+    void run(Path file) throws IOException {
+        long start = System.nanoTime();
+        enumerate();
+        countGames();
+        reach(Board.EMPTY);
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        int canonicalPositions = 0;
+        for (int[] level : levels) {
+            canonicalPositions += level.length;
+        }
+        System.out.printf("Analyzed %d positions (%d without symmetries) in %.1f ms.%n", canonicalPositions,
+                Arrays.stream(positions).sum(), millis);
+        printLevels();
+        printGames();
+
+        checkHardAi();
+        if (file != null) {
+            write(file);
+            System.out.println("Saved every position with its value and best moves to " + file + ".");
+        }
+    }
+
+    /**
+     * Find the canonical positions of every level, each level from the positions of the level above.
+     */
+    private void enumerate() {
+        levels[0] = new int[]{Board.EMPTY};
+        for (int level = 1; level < LEVELS; level++) {
+            levels[level] = IntStream.of(levels[level - 1])
+                    .parallel()
+                    .filter(board -> !isOver(board))
+                    .flatMap(board -> IntStream.of(children(board)))
+                    .map(Board::canonical)
+                    .distinct()
+                    .sorted()
+                    .toArray();
+        }
+
+        Arrays.fill(slots, -1);
+        int slot = 0;
+        for (int[] level : levels) {
+            for (int board : level) {
+                slots[board] = slot++;
+            }
+        }
+        games = new long[slot * COUNTERS];
+    }
+
+    /**
+     * Add up the games that can be played from the positions, level by level from the full tables up. A position
+     * is only written by the thread that counts it, and only reads the positions of the level below, counted
+     * before, so no locking is needed.
+     */
+    private void countGames() {
+        for (int level = LEVELS - 1; level >= 0; level--) {
+            IntStream.of(levels[level]).parallel().forEach(this::countGames);
+        }
+    }
+
+    /**
+     * Add up the games that can be played from this canonical position: the ones from every position it leads to,
+     * or the game that ends here.
+     */
+    private void countGames(int board) {
+        char player = Board.sideToMove(board);
+        int counters = slots[board] * COUNTERS;
+        int level = Board.CELLS - Board.emptyCount(board);
+
+        if (Board.winning(board, Board.opponent(player))) {
+            games[counters + counter(player == 'X' ? GameState.O_WINS : GameState.X_WINS, level)] = 1;
+            return;
+        }
+        if (Board.emptyCount(board) == 0) {
+            games[counters + counter(GameState.DRAW, level)] = 1;
+            return;
+        }
+
+        for (int empty = Board.emptyCells(board); empty != 0; empty &= empty - 1) {
+            int child = Board.canonical(Board.place(board, Integer.numberOfTrailingZeros(empty), player));
+            int childCounters = slots[child] * COUNTERS;
+            for (int counter = 0; counter < COUNTERS; counter++) {
+                games[counters + counter] += games[childCounters + counter];
+            }
+        }
+    }
+
+    /**
+     * Visit this position and every position reachable from it, with no symmetry applied, counting them.
+     */
+    private void reach(int board) {
+        if (reached[board]) {
+            return;
+        }
+        reached[board] = true;
+
+        int level = Board.CELLS - Board.emptyCount(board);
+        positions[level]++;
+        GameState state = state(board);
+        if (state != GameState.NOT_FINISHED) {
+            finishedPositions[result(state)][level]++;
+            return;
+        }
+        for (int child : children(board)) {
+            reach(child);
+        }
+    }
+
+    private void printLevels() {
+        int emptyCounters = slots[Board.EMPTY] * COUNTERS;
+        System.out.println("Moves  Positions  Canonical  X wins  O wins  Draws  Games ended");
+        for (int level = 0; level < LEVELS; level++) {
+            long gamesEnded = 0;
+            for (GameState result : RESULTS) {
+                gamesEnded += games[emptyCounters + counter(result, level)];
+            }
+            System.out.printf("%5d  %9d  %9d  %6d  %6d  %5d  %11d%n", level, positions[level], levels[level].length,
+                    finishedPositions[0][level], finishedPositions[1][level], finishedPositions[2][level],
+                    gamesEnded);
+        }
+    }
+
+    private void printGames() {
+        int emptyCounters = slots[Board.EMPTY] * COUNTERS;
+        long[] byResult = new long[RESULTS.length];
+        long total = 0;
+        for (int result = 0; result < RESULTS.length; result++) {
+            for (int level = 0; level < LEVELS; level++) {
+                byResult[result] += games[emptyCounters + counter(RESULTS[result], level)];
+            }
+            total += byResult[result];
+        }
+        System.out.printf("%d games: X wins %d (%.2f%%), O wins %d (%.2f%%), draws %d (%.2f%%).%n", total,
+                byResult[0], 100.0 * byResult[0] / total, byResult[1], 100.0 * byResult[1] / total,
+                byResult[2], 100.0 * byResult[2] / total);
+        System.out.println("With perfect play from the empty table: " + value(Board.EMPTY) + ", best first moves: " +
+                movesOf(bestMoveMask(Board.EMPTY)) + ".");
+    }
+
+    /**
+     * Check the values of the solved table on every reachable position that isn't over, and the move the hard AI
+     * picks from it with every search mode. The search modes are checked in parallel, each with its own search.
+     */
+    private void checkHardAi() {
+        SearchMode[] modes = SearchMode.values();
+        long[] wrongMoves = IntStream.range(0, modes.length)
+                .parallel()
+                .mapToLong(mode -> countWrongMoves(modes[mode]))
+                .toArray();
+
+        long checked = 0;
+        long wrongValues = 0;
+        for (int board = 0; board < BOARDS; board++) {
+            if (reached[board] && !isOver(board)) {
+                checked++;
+                if (SolvedTable.score(board) != bestChildScore(board) ||
+                        SolvedTable.score(board) != SolvedTable.score(Board.canonical(board))) {
+                    if (wrongValues++ < 5) {
+                        System.out.println("The solved table has the value " + SolvedTable.score(board) + " on " +
+                                cells(board) + ", its moves lead to " + bestChildScore(board) +
+                                " and its canonical position has " + SolvedTable.score(Board.canonical(board)) + ".");
+                    }
+                }
+            }
+        }
+
+        for (int mode = 0; mode < modes.length; mode++) {
+            System.out.println((wrongMoves[mode] == 0 ? "OK     " : "FAILED ") + "hard (" + modes[mode] +
+                    ") picks a best move from " + (checked - wrongMoves[mode]) + " of " + checked + " positions.");
+        }
+        System.out.println((wrongValues == 0 ? "OK     " : "FAILED ") + "the solved table has the right value of " +
+                (checked - wrongValues) + " of " + checked + " positions.");
+        checkEvaluator();
+    }
+
+    /**
+     * Evaluate every reachable position in one batch, and check that the evaluator answers exactly like the minimax
+     * search: the same move, and the value of the solved table.
+     */
+    private void checkEvaluator() {
+        int[] evaluations = new PositionEvaluator()
+                .evaluate(IntStream.range(0, BOARDS).filter(board -> reached[board]))
+                .toArray();
+
+        HardStrategy minimax = new HardStrategy(SearchMode.MINIMAX);
+        long wrongAnswers = 0;
+        for (int evaluation : evaluations) {
+            int board = PositionEvaluator.board(evaluation);
+            int move = isOver(board) ? PositionEvaluator.NO_MOVE : minimax.bestMove(board);
+            if (PositionEvaluator.bestMove(evaluation) != move ||
+                    PositionEvaluator.score(evaluation) != SolvedTable.score(board)) {
+                if (wrongAnswers++ < 5) {
+                    System.out.println("The evaluator plays " + PositionEvaluator.bestMove(evaluation) +
+                            " with the value " + PositionEvaluator.score(evaluation) + " on " + cells(board) +
+                            " instead of " + move + " with the value " + SolvedTable.score(board) + ".");
+                }
+            }
+        }
+        System.out.println((wrongAnswers == 0 ? "OK     " : "FAILED ") + "the batch evaluator answers like minimax on " +
+                (evaluations.length - wrongAnswers) + " of " + evaluations.length + " positions.");
+    }
+
+    private long countWrongMoves(SearchMode mode) {
+        HardStrategy hard = new HardStrategy(mode);
+        long wrongMoves = 0;
+        for (int board = 0; board < BOARDS; board++) {
+            if (!reached[board] || isOver(board)) {
+                continue;
+            }
+            int index = hard.bestMove(board);
+            if (!isBestMove(board, index)) {
+                if (wrongMoves++ < 5) {
+                    System.out.println("hard (" + mode + ") plays " + index + " on " + cells(board) +
+                            " instead of one of " + movesOf(bestMoveMask(board)) + ".");
+                }
+            }
+        }
+        return wrongMoves;
+    }
+
+    /**
+     * Returns whether playing on the cell with this index is one of the best moves on this board.
+     */
+    private boolean isBestMove(int board, int index) {
+        return index >= 0 && index < Board.CELLS && Board.isCellEmpty(board, index) &&
+                -SolvedTable.score(Board.place(board, index, Board.sideToMove(board))) == SolvedTable.score(board);
+    }
+
+    /**
+     * Returns the best of the negated values in the solved table of the positions this board leads to, which
+     * must not be over: the value it must have itself.
+     */
+    private static int bestChildScore(int board) {
+        char player = Board.sideToMove(board);
+        int bestScore = Integer.MIN_VALUE;
+        for (int empty = Board.emptyCells(board); empty != 0; empty &= empty - 1) {
+            int index = Integer.numberOfTrailingZeros(empty);
+            bestScore = Math.max(bestScore, -SolvedTable.score(Board.place(board, index, player)));
+        }
+        return bestScore;
+    }
+
+    /**
+     * Returns the mask of the best moves on this board, which may not be canonical.
+     */
+    private int bestMoveMask(int board) {
+        int mask = 0;
+        for (int empty = Board.emptyCells(board); empty != 0; empty &= empty - 1) {
+            int index = Integer.numberOfTrailingZeros(empty);
+            if (isBestMove(board, index)) {
+                mask |= 1 << index;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Write every reachable position, one per line: its cells, how the game ends with perfect play and its best
+     * moves, for example "X___O____ DRAW 1 2 3 5 6 7 8".
+     */
+    private void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int board = 0; board < BOARDS; board++) {
+                if (reached[board]) {
+                    writer.write(cells(board) + " " + value(board).name());
+                    String moves = movesOf(bestMoveMask(board));
+                    writer.write(moves.isEmpty() ? "" : " " + moves);
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how the game ends from this board with perfect play.
+     */
+    private GameState value(int board) {
+        int score = SolvedTable.score(board);
+        if (score == 0) {
+            return GameState.DRAW;
+        }
+        return (score > 0) == (Board.sideToMove(board) == 'X') ? GameState.X_WINS : GameState.O_WINS;
+    }
+
+    private static GameState state(int board) {
+        if (Board.winning(board, 'X')) {
+            return GameState.X_WINS;
+        }
+        if (Board.winning(board, 'O')) {
+            return GameState.O_WINS;
+        }
+        return Board.emptyCount(board) == 0 ? GameState.DRAW : GameState.NOT_FINISHED;
+    }
+
+    private static boolean isOver(int board) {
+        return state(board) != GameState.NOT_FINISHED;
+    }
+
+    /**
+     * Returns the boards the player to move can reach from this board.
+     */
+    private static int[] children(int board) {
+        char player = Board.sideToMove(board);
+        int[] children = new int[Board.emptyCount(board)];
+        int child = 0;
+        for (int empty = Board.emptyCells(board); empty != 0; empty &= empty - 1) {
+            children[child++] = Board.place(board, Integer.numberOfTrailingZeros(empty), player);
+        }
+        return children;
+    }
+
+    private static int counter(GameState result, int level) {
+        return result(result) * LEVELS + level;
+    }
+
+    private static int result(GameState state) {
+        for (int result = 0; result < RESULTS.length; result++) {
+            if (RESULTS[result] == state) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Not a result: " + state);
+    }
+
+    private static String cells(int board) {
+        StringBuilder cells = new StringBuilder(Board.CELLS);
+        for (int index = 0; index < Board.CELLS; index++) {
+            cells.append(Board.isCellEmpty(board, index) ? '_' : Board.symbolAt(board, index));
+        }
+        return cells.toString();
+    }
+
+    private static String movesOf(int mask) {
+        StringBuilder moves = new StringBuilder();
+        for (; mask != 0; mask &= mask - 1) {
+            moves.append(moves.length() == 0 ? "" : " ").append(Integer.numberOfTrailingZeros(mask));
+        }
+        return moves.toString();
+    }
+}
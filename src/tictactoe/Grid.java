@@ -0,0 +1,346 @@
+package tictactoe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A table of any size where K symbols in a row (horizontally, vertically or diagonally) win the game.
+ * Cells are indexed row by row, so the cell in row r and column c has the index r * size + c.
+ * <p>
+ * The lines that win the game are generated once for the size and K, and each cell knows the lines passing
+ * through it. The number of symbols of each player on every line is kept up to date as the moves are made,
+ * so a move only updates the lines passing through its cell, and completes one of them when a count reaches K.
+ * The classic 3x3 table also keeps its bitboard (see Board) up to date, so the 3x3 engines keep running on it.
+ * <p>
+ * The empty cells are kept in a set too, an array where a taken cell is swapped with the last empty one, so a
+ * random empty cell is picked with a single random number, however full the table is.
+ */
+final class Grid {
+
+    static final int MIN_SIZE = 3;
+    static final int MAX_SIZE = 19;
+
+    /* The symbol of the empty cells. */
+    static final char EMPTY = ' ';
+
+    private final int size;
+    private final int k;
+
+    /* Every line of K cells, as arrays of cell indexes. */
+    private final int[][] lines;
+
+    /* For every cell, the indexes (in lines) of the lines passing through it. */
+    private final int[][] cellLines;
+
+    private final char[] table;
+
+    /* The number of Xs and Os on every line. */
+    private final int[] xCounts;
+    private final int[] oCounts;
+
+    /* The empty cells, in the first emptyCount entries, and the position of every cell in emptyCells. */
+    private final int[] emptyCells;
+    private final int[] emptyPositions;
+
+    private int emptyCount;
+    private char winner = EMPTY;
+
+    /* The bitboard of the classic 3x3 table. */
+    private int bits = Board.EMPTY;
+
+    /**
+     * Create an empty table.
+     *
+     * @param size the number of rows (and columns), in range [MIN_SIZE, MAX_SIZE].
+     * @param k    the number of symbols in a row that win, in range [3, size].
+     */
+    Grid(int size, int k) {
+        if (size < MIN_SIZE || size > MAX_SIZE || k < 3 || k > size) {
+            throw new IllegalArgumentException("Bad table size " + size + " or K " + k);
+        }
+        this.size = size;
+        this.k = k;
+        this.lines = generateLines(size, k);
+        this.cellLines = linesThroughCells(size * size, lines);
+        this.table = new char[size * size];
+        Arrays.fill(table, EMPTY);
+        this.xCounts = new int[lines.length];
+        this.oCounts = new int[lines.length];
+        this.emptyCells = new int[table.length];
+        this.emptyPositions = new int[table.length];
+        this.emptyCount = table.length;
+        resetEmptyCells();
+    }
+
+    /**
+     * Create the classic 3x3 table.
+     */
+    Grid() {
+        this(3, 3);
+    }
+
+    private Grid(Grid other) {
+        this.size = other.size;
+        this.k = other.k;
+        this.lines = other.lines;
+        this.cellLines = other.cellLines;
+        this.table = other.table.clone();
+        this.xCounts = other.xCounts.clone();
+        this.oCounts = other.oCounts.clone();
+        this.emptyCells = other.emptyCells.clone();
+        this.emptyPositions = other.emptyPositions.clone();
+        this.emptyCount = other.emptyCount;
+        this.winner = other.winner;
+        this.bits = other.bits;
+    }
+
+    /**
+     * Returns a copy of this table that can be played on independently.
+     */
+    Grid copy() {
+        return new Grid(this);
+    }
+
+    /**
+     * Make this table the same as another one of the same size and K, without allocating a new one.
+     */
+    void copyFrom(Grid other) {
+        if (other.size != size || other.k != k) {
+            throw new IllegalArgumentException("Can't copy a " + other.size + "x" + other.size + " table, K " +
+                    other.k + ", into a " + size + "x" + size + " table, K " + k);
+        }
+        System.arraycopy(other.table, 0, table, 0, table.length);
+        System.arraycopy(other.xCounts, 0, xCounts, 0, xCounts.length);
+        System.arraycopy(other.oCounts, 0, oCounts, 0, oCounts.length);
+        System.arraycopy(other.emptyCells, 0, emptyCells, 0, emptyCells.length);
+        System.arraycopy(other.emptyPositions, 0, emptyPositions, 0, emptyPositions.length);
+        emptyCount = other.emptyCount;
+        winner = other.winner;
+        bits = other.bits;
+    }
+
+    /**
+     * Empty all the cells.
+     */
+    void clear() {
+        Arrays.fill(table, EMPTY);
+        Arrays.fill(xCounts, 0);
+        Arrays.fill(oCounts, 0);
+        emptyCount = table.length;
+        resetEmptyCells();
+        winner = EMPTY;
+        bits = Board.EMPTY;
+    }
+
+    private void resetEmptyCells() {
+        for (int cell = 0; cell < table.length; cell++) {
+            emptyCells[cell] = cell;
+            emptyPositions[cell] = cell;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int k() {
+        return k;
+    }
+
+    int cellCount() {
+        return table.length;
+    }
+
+    int emptyCount() {
+        return emptyCount;
+    }
+
+    boolean isFull() {
+        return emptyCount == 0;
+    }
+
+    /**
+     * Returns true if this is the classic 3x3 table, which can be played by the bitboard engines.
+     */
+    boolean isClassic() {
+        return size == 3 && k == 3;
+    }
+
+    /**
+     * Returns the bitboard of the classic 3x3 table (see Board).
+     */
+    int bits() {
+        return bits;
+    }
+
+    /**
+     * Returns one of the empty cells: every position in range [0, emptyCount() - 1] gives another one, in no
+     * particular order.
+     */
+    int emptyCellAt(int position) {
+        return emptyCells[position];
+    }
+
+    boolean isCellEmpty(int index) {
+        return table[index] == EMPTY;
+    }
+
+    /**
+     * Returns 'X', 'O' or EMPTY.
+     */
+    char symbolAt(int index) {
+        return table[index];
+    }
+
+    /**
+     * Returns the symbol of the player who has K in a row, or EMPTY if none has.
+     */
+    char winner() {
+        return winner;
+    }
+
+    int[][] lines() {
+        return lines;
+    }
+
+    /**
+     * Returns the indexes (in lines()) of the lines passing through this cell.
+     */
+    int[] linesThrough(int index) {
+        return cellLines[index];
+    }
+
+    /**
+     * Place this symbol on the cell with this index, which must be empty,
+     * and check whether it completes a line.
+     */
+    void place(int index, char symbol) {
+        table[index] = symbol;
+        emptyCount--;
+
+        /* Swap the cell with the last empty cell, out of the empty cells. */
+        int position = emptyPositions[index];
+        int last = emptyCells[emptyCount];
+        emptyCells[position] = last;
+        emptyPositions[last] = position;
+        emptyCells[emptyCount] = index;
+        emptyPositions[index] = emptyCount;
+
+        if (isClassic()) {
+            bits = Board.place(bits, index, symbol);
+        }
+
+        int[] counts = symbol == 'X' ? xCounts : oCounts;
+        for (int line : cellLines[index]) {
+            if (++counts[line] == k && winner == EMPTY) {
+                winner = symbol;
+            }
+        }
+    }
+
+    /**
+     * Take back the last move made on the cell with this index. It's meant for searches, which play virtual moves
+     * and take them back in the reverse order, so the table never had a winner before that move.
+     */
+    void remove(int index) {
+        if (isClassic()) {
+            bits &= ~(1 << index | 1 << index + Board.CELLS);
+        }
+
+        int[] counts = table[index] == 'X' ? xCounts : oCounts;
+        for (int line : cellLines[index]) {
+            counts[line]--;
+        }
+        table[index] = EMPTY;
+        emptyCount++;
+        winner = EMPTY;
+        /* The taken cells are kept after the empty cells: swap the cell with the first of them, which becomes the
+         * last empty cell. */
+        int position = emptyPositions[index];
+        int firstTaken = emptyCells[emptyCount - 1];
+        emptyCells[position] = firstTaken;
+        emptyPositions[firstTaken] = position;
+        emptyCells[emptyCount - 1] = index;
+        emptyPositions[index] = emptyCount - 1;
+    }
+
+    /**
+     * Returns the number of cells of this line taken by this symbol.
+     */
+    int countInLine(int line, char symbol) {
+        return symbol == 'X' ? xCounts[line] : oCounts[line];
+    }
+
+    /**
+     * Returns the index of an empty cell that would complete a line of this symbol, if exists. Otherwise, returns -1.
+     * When there are many of them, the lowest index is returned.
+     */
+    int crucialCell(char symbol) {
+        int[] counts = symbol == 'X' ? xCounts : oCounts;
+        int[] otherCounts = symbol == 'X' ? oCounts : xCounts;
+
+        int crucialCell = -1;
+        for (int line = 0; line < lines.length; line++) {
+            /* Only a line with K - 1 of the symbols and none of the other has an empty cell that completes it. */
+            if (counts[line] != k - 1 || otherCounts[line] != 0) {
+                continue;
+            }
+            for (int cell : lines[line]) {
+                if (table[cell] == EMPTY && (crucialCell == -1 || cell < crucialCell)) {
+                    crucialCell = cell;
+                }
+            }
+        }
+        return crucialCell;
+    }
+
+    /**
+     * Generate every line of k cells on a size x size table: horizontal, vertical and both diagonals.
+     */
+    private static int[][] generateLines(int size, int k) {
+        /* The four directions of a line, as steps in rows and columns. */
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+        List<int[]> lines = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                for (int[] direction : directions) {
+                    int lastRow = row + (k - 1) * direction[0];
+                    int lastColumn = column + (k - 1) * direction[1];
+                    if (lastRow >= size || lastColumn < 0 || lastColumn >= size) {
+                        continue;
+                    }
+
+                    int[] line = new int[k];
+                    for (int i = 0; i < k; i++) {
+                        line[i] = (row + i * direction[0]) * size + column + i * direction[1];
+                    }
+                    lines.add(line);
+                }
+            }
+        }
+        return lines.toArray(new int[0][]);
+    }
+
+    private static int[][] linesThroughCells(int cellCount, int[][] lines) {
+        int[] counts = new int[cellCount];
+        for (int[] line : lines) {
+            for (int cell : line) {
+                counts[cell]++;
+            }
+        }
+
+        int[][] cellLines = new int[cellCount][];
+        for (int cell = 0; cell < cellCount; cell++) {
+            cellLines[cell] = new int[counts[cell]];
+            counts[cell] = 0;
+        }
+        for (int line = 0; line < lines.length; line++) {
+            for (int cell : lines[line]) {
+                cellLines[cell][counts[cell]++] = line;
+            }
+        }
+        return cellLines;
+    }
+}
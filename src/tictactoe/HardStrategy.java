@@ -0,0 +1,322 @@
+package tictactoe;
+
+/**
+ * Compared to the "medium" level difficulty, this level not just go one move ahead to see
+ * an immediate win or prevent an immediate loss. This level can see two moves ahead,
+ * three moves ahead and so on. Basically, it can see all possible outcomes till the end
+ * of the game and choose the best of them considering his opponent also would play perfectly.
+ * So, it doesn't rely on the blunders of the opponent, it plays perfectly regardless of the opponent's skill.
+ * By default, the outcomes are precomputed once in the solved table, so a move is a single lookup.
+ * On bigger tables, where the outcomes can't be all seen, it searches as deep as it can within its time budget.
+ */
+final class HardStrategy implements MoveStrategy {
+
+    /* How the hard level picks its moves by default: looked up in the solved table, or searched live.
+     * Run with -Dtictactoe.hard=minimax or -Dtictactoe.hard=alphabeta to search the moves live. */
+    static final SearchMode DEFAULT_SEARCH_MODE = SearchMode.of(System.getProperty("tictactoe.hard", "table"));
+
+    private final SearchMode searchMode;
+
+    /* The search on tables bigger than 3x3. */
+    private final DeepeningSearch deepeningSearch = new DeepeningSearch(ComputerPlayer.THINK_MILLIS,
+            ComputerPlayer.PARALLEL_SEARCH);
+
+    /* Results of the live search, kept across the moves of all the games. They are scores for the player to move,
+     * so they serve both players. */
+    private final TranspositionTable cache = new TranspositionTable();
+
+    /* The symbol of the player the current search picks a move for, the AI. */
+    private char aiSymbol;
+
+    /* Number of positions visited by the live search, in total and for the last move, and whether the last move
+     * was searched on a table bigger than 3x3. */
+    private long nodes;
+    private long lastSearchNodes;
+    private boolean lastMoveDeepening;
+
+    HardStrategy() {
+        this(DEFAULT_SEARCH_MODE);
+    }
+
+    HardStrategy(SearchMode searchMode) {
+        this.searchMode = searchMode;
+
+        /* Load the solved table now (mapped from its file, or solved if there's none) rather than on the first move. */
+        if (searchMode == SearchMode.SOLVED_TABLE) {
+            SolvedTable.positions();
+        }
+    }
+
+    @Override
+    public int chooseMove(Grid grid, char player) {
+        lastMoveDeepening = !grid.isClassic();
+        if (lastMoveDeepening) {
+            return deepeningSearch.bestMove(grid, player);
+        }
+        return bestMove(grid.bits());
+    }
+
+    @Override
+    public void setStopped(boolean stopped) {
+        deepeningSearch.setStopped(stopped);
+    }
+
+    @Override
+    public long lastSearchNodes() {
+        return lastMoveDeepening ? deepeningSearch.nodes() : lastSearchNodes;
+    }
+
+    @Override
+    public int lastSearchDepth() {
+        return lastMoveDeepening ? deepeningSearch.depth() : 0;
+    }
+
+    @Override
+    public long cacheHits() {
+        return cache.hits();
+    }
+
+    @Override
+    public long cacheMisses() {
+        return cache.misses();
+    }
+
+    @Override
+    public String describeLastMove() {
+        if (lastMoveDeepening) {
+            return "Searched " + deepeningSearch.nodes() + " positions.";
+        }
+        if (searchMode != SearchMode.SOLVED_TABLE) {
+            return "Searched " + lastSearchNodes + " positions (" + searchMode + ").";
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the best cell to play on this 3x3 board for the player to move, picked according to the
+     * search mode.
+     */
+    int bestMove(int board) {
+        aiSymbol = Board.sideToMove(board);
+        long nodesBefore = nodes;
+        int bestMoveIndex;
+        switch (searchMode) {
+            case MINIMAX:
+                bestMoveIndex = bestMoveMinimax(board);
+                break;
+
+            case ALPHA_BETA:
+                bestMoveIndex = bestMoveAlphaBeta(board);
+                break;
+
+            default:
+                bestMoveIndex = SolvedTable.bestMove(board);
+        }
+        lastSearchNodes = nodes - nodesBefore;
+        return bestMoveIndex;
+    }
+
+    /**
+     * Run the minimax algorithm for every empty cell of this board and return the index of the cell with the
+     * highest score (i.e. the best possible index to play).
+     */
+    private int bestMoveMinimax(int board) {
+        char opponentSymbol = Board.opponent(aiSymbol);
+
+        int bestScore = Integer.MIN_VALUE;
+        int bestMoveIndex = -1;
+        for (int empty = Board.emptyCells(board); empty != 0; empty &= empty - 1) {
+            int index = Integer.numberOfTrailingZeros(empty);
+            int score = minimax(Board.place(board, index, aiSymbol), opponentSymbol);
+            if (score > bestScore) {
+                bestScore = score;
+                bestMoveIndex = index;
+            }
+        }
+
+        return bestMoveIndex;
+    }
+
+    /**
+     * The minimax algorithm. It can see all the outcomes of the current state of the game and decides the best
+     * next move.
+     *
+     * @param board:  this algorithm makes a virtual game by itself depending on the current state of the
+     *                table and continues playing until it reaches a terminal state (i.e. a win, lose or draw).
+     *                Boards are plain ints, so every virtual move works on its own copy.
+     * @param player: the player symbol (X or O) to move on this board. This algorithm plays this symbol
+     *                then the opponent symbol and so on to reach a terminal state.
+     * @return the score of this board for the AI: positive for a win, negative for a lose and 0 for a draw.
+     */
+    private int minimax(int board, char player) {
+        nodes++;
+        char opponentSymbol = Board.opponent(aiSymbol);
+
+        /* Check for a terminal state such as a win, lose or tie. And return a value accordingly. */
+        if (Board.winning(board, aiSymbol)) {
+            return ComputerPlayer.winScore(board);
+        } else if (Board.winning(board, opponentSymbol)) {
+            return -ComputerPlayer.winScore(board);
+        }
+
+        int availSpots = Board.emptyCells(board);
+        if (availSpots == 0) {
+            return 0;
+        }
+
+        /* The cache holds scores for the player to move, which are the AI scores negated on the opponent's turn. */
+        int cached = cache.probe(board);
+        if (cached != TranspositionTable.MISS) {
+            int cachedScore = TranspositionTable.score(cached);
+            return player == aiSymbol ? cachedScore : -cachedScore;
+        }
+
+        /* Choose the best move according to the current player:
+         * - If it's aiPlayer, choose the move with the highest score.
+         * - If it's huPlayer, choose the move with the lowest score.
+         * The best score is kept while looping, so nothing is allocated per move. */
+        boolean aiPlayer = player == aiSymbol;
+        int bestScore = aiPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+
+        // Loop through available spots, lowest index first.
+        for (; availSpots != 0; availSpots &= availSpots - 1) {
+            int index = Integer.numberOfTrailingZeros(availSpots);
+
+            /* Collect the score resulted from playing the spot by the current player (virtual move)
+             * and calling minimax on the opponent. */
+            int score = minimax(Board.place(board, index, player), Board.opponent(player));
+            bestScore = aiPlayer ? Math.max(bestScore, score) : Math.min(bestScore, score);
+        }
+
+        cache.put(board, player == aiSymbol ? bestScore : -bestScore, TranspositionTable.EXACT);
+        return bestScore;
+    }
+
+    /**
+     * Run the alpha-beta search for every empty cell of this board, most promising cells first,
+     * and return the index of the cell with the highest score.
+     */
+    private int bestMoveAlphaBeta(int board) {
+        nodes++;
+        char opponentSymbol = Board.opponent(aiSymbol);
+
+        int alpha = -Integer.MAX_VALUE;
+        int bestMoveIndex = -1;
+        for (long moves = orderedMoves(board, aiSymbol); moves != NO_MORE_MOVES; moves >>>= 4) {
+            int index = (int) (moves & 0xF);
+            int score = -alphaBeta(Board.place(board, index, aiSymbol), opponentSymbol,
+                    -Integer.MAX_VALUE, -alpha);
+            if (score > alpha) {
+                alpha = score;
+                bestMoveIndex = index;
+            }
+        }
+
+        return bestMoveIndex;
+    }
+
+    /**
+     * The minimax algorithm with alpha-beta pruning, written from the point of view of the player to move
+     * (the score of a board is the negated score of the opponent's best reply).
+     * It tries the most promising moves first, and stops searching a board as soon as one of its moves proves
+     * the opponent would never let the game reach it.
+     *
+     * @param board:  the board to score.
+     * @param player: the player symbol (X or O) to move on this board.
+     * @param alpha:  the score the player to move is already guaranteed elsewhere.
+     * @param beta:   the score the opponent is already guaranteed elsewhere, negated.
+     * @return the score of this board for the player to move. If it's not above alpha (or not below beta),
+     * it's only a bound of the real score.
+     */
+    private int alphaBeta(int board, char player, int alpha, int beta) {
+        nodes++;
+
+        /* Only the opponent, who made the last move, might have won. */
+        if (Board.winning(board, Board.opponent(player))) {
+            return -ComputerPlayer.winScore(board);
+        } else if (Board.emptyCells(board) == 0) {
+            return 0;
+        }
+
+        int cached = cache.probe(board);
+        if (cached != TranspositionTable.MISS) {
+            int cachedScore = TranspositionTable.score(cached);
+            int bound = TranspositionTable.bound(cached);
+            if (bound == TranspositionTable.EXACT) {
+                return cachedScore;
+            } else if (bound == TranspositionTable.LOWER_BOUND) {
+                alpha = Math.max(alpha, cachedScore);
+            } else {
+                beta = Math.min(beta, cachedScore);
+            }
+            if (alpha >= beta) {
+                return cachedScore;
+            }
+        }
+
+        int originalAlpha = alpha;
+        int bestScore = -Integer.MAX_VALUE;
+        for (long moves = orderedMoves(board, player); moves != NO_MORE_MOVES; moves >>>= 4) {
+            int score = -alphaBeta(Board.place(board, (int) (moves & 0xF), player), Board.opponent(player),
+                    -beta, -alpha);
+            if (score > bestScore) {
+                bestScore = score;
+                alpha = Math.max(alpha, score);
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+
+        int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : bestScore >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+        cache.put(board, bestScore, bound);
+        return bestScore;
+    }
+
+    /* Ends the list of moves returned by orderedMoves(). */
+    private static final long NO_MORE_MOVES = 0xF;
+
+    /**
+     * Returns the empty cells of this board in the order they are worth trying: the cells that win, the cells
+     * that block the opponent from winning, the center, the corners and then the edges.
+     * The cell indexes are packed 4 bits each into a long (first move in the lowest bits), followed by
+     * NO_MORE_MOVES, so the list is read without allocating anything:
+     * <pre>
+     * for (long moves = orderedMoves(board, player); moves != NO_MORE_MOVES; moves >>>= 4) {
+     *     int index = (int) (moves & 0xF);
+     * }
+     * </pre>
+     */
+    static long orderedMoves(int board, char player) {
+        int empty = Board.emptyCells(board);
+        int winning = Board.crucialCells(board, player);
+        int blocking = Board.crucialCells(board, Board.opponent(player)) & ~winning;
+        int others = empty & ~winning & ~blocking;
+
+        long moves = NO_MORE_MOVES;
+        moves = pushMoves(moves, others & Board.EDGES);
+        moves = pushMoves(moves, others & Board.CORNERS);
+        moves = pushMoves(moves, others & Board.CENTER);
+        moves = pushMoves(moves, blocking);
+        moves = pushMoves(moves, winning);
+        return moves;
+    }
+
+    /**
+     * Push these cells in front of the list of moves, lowest index first.
+     */
+    private static long pushMoves(long moves, int cells) {
+        for (; cells != 0; cells &= ~Integer.highestOneBit(cells)) {
+            moves = moves << 4 | Integer.numberOfTrailingZeros(Integer.highestOneBit(cells));
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the cache of the live search, to read its hit and miss counters.
+     */
+    TranspositionTable cache() {
+        return cache;
+    }
+}
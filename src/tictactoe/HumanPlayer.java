@@ -1,14 +1,39 @@
 package tictactoe;
 
+import java.io.PrintStream;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 
 public class HumanPlayer extends Player {
 
+    /* Where the moves are read from, for the whole game. A scanner buffers what it reads, so a new scanner
+     * per move would lose the moves typed (or piped) ahead. */
+    private final Scanner sc;
+
+    /* Where the prompts and the errors are printed. */
+    private final PrintStream out;
+
     /**
      * Create a human player by providing the symbol that he will play with.
      */
     public HumanPlayer(char symbol) {
+        this(symbol, new Scanner(System.in));
+    }
+
+    /**
+     * Create a human player by providing the symbol that he will play with, and where his moves are read from.
+     */
+    HumanPlayer(char symbol, Scanner sc) {
+        this(symbol, sc, System.out);
+    }
+
+    /**
+     * Create a human player by providing the symbol that he will play with, where his moves are read from,
+     * and where he's prompted for them. Scripted games read their moves from a string and print nowhere.
+     */
+    HumanPlayer(char symbol, Scanner sc, PrintStream out) {
+        this.sc = sc;
+        this.out = out;
         super.symbol = symbol;
     }
 
@@ -17,34 +42,33 @@ public class HumanPlayer extends Player {
      * and check its correctness, i.e. the cell is not empty.
      */
     @Override
-    void makeMove() {
-        Scanner sc = new Scanner(System.in);
-
+    void makeMove(Game game) {
         int moveIndex;
         while (true) {
 
             /* Only numbers are allowed. */
             try {
-                System.out.print("Make a move (You are " + this.symbol + "): ");
+                out.print("Make a move (You are " + this.symbol + "): ");
                 moveIndex = sc.nextInt();
             } catch (InputMismatchException e) {
-                System.out.println("You should enter numbers!");
+                out.println("You should enter numbers!");
                 sc.nextLine(); // Clear the buffer or the program will enter an infinite loop.
                 continue;
             }
 
-            /* The index should be in range [0,8]. */
-            if (moveIndex < 0 || moveIndex > 8) {
-                System.out.println("Index should be from 0 to 8 (inclusive).");
+            /* The index should be in range [0, cells - 1]. */
+            int lastIndex = game.grid().cellCount() - 1;
+            if (moveIndex < 0 || moveIndex > lastIndex) {
+                out.println("Index should be from 0 to " + lastIndex + " (inclusive).");
                 continue;
             }
 
-            if (Main.isCellEmpty(moveIndex)) {
+            if (game.isCellEmpty(moveIndex)) {
                 // Make the user's move
-                Main.table[moveIndex] = symbol;
+                game.play(moveIndex);
                 break;
             } else {
-                System.out.println("This cell is occupied! Choose another one!");
+                out.println("This cell is occupied! Choose another one!");
             }
 
         }
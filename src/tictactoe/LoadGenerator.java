@@ -0,0 +1,291 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Plays many games against a GameServer at once to load it: every connection plays its games as the X user
+ * against an AI, picking random moves as fast as the server answers. All the connections are served by one
+ * thread with a selector, like the server, so thousands of them take no more threads.
+ * It prints how many games were played per second, how they ended and how long the server took to answer a move.
+ */
+final class LoadGenerator {
+
+    /* The most bytes queued to the server, which reads the lines as they come, above which the connection is
+     * dropped. */
+    private static final int MAX_PENDING_BYTES = 1024;
+
+    private final InetSocketAddress server;
+    private final int connections;
+    private final int gamesPerConnection;
+    private final String ai;
+
+    private final Random random = new Random();
+    private final LatencyHistogram answerLatency = new LatencyHistogram();
+
+    private int openConnections;
+    private long userWins;
+    private long aiWins;
+    private long draws;
+    private long errors;
+
+    /**
+     * Create a load generator.
+     *
+     * @param server             the address of the server.
+     * @param connections        the number of connections open at once.
+     * @param gamesPerConnection the number of games played one after the other on each connection.
+     * @param ai                 the AI player the games are played against: easy, medium, hard or mcts.
+     */
+    LoadGenerator(InetSocketAddress server, int connections, int gamesPerConnection, String ai) {
+        this.server = server;
+        this.connections = connections;
+        this.gamesPerConnection = gamesPerConnection;
+        this.ai = ai;
+    }
+
+    /**
+     * Create a load generator from the parameters of the command: load &lt;connections&gt; &lt;games&gt; [ai] [host]
+     * [port]
+     *
+     * @return the load generator, or null if the parameters are not valid.
+     */
+    static LoadGenerator parse(String[] params) {
+        if (params.length < 3 || params.length > 6) {
+            return null;
+        }
+        try {
+            int connections = Integer.parseInt(params[1]);
+            int games = Integer.parseInt(params[2]);
+            String ai = params.length > 3 ? params[3] : "hard";
+            String host = params.length > 4 ? params[4] : "localhost";
+            int port = params.length > 5 ? Integer.parseInt(params[5]) : GameServer.DEFAULT_PORT;
+            if (connections <= 0 || games <= 0 || !Main.validPlayerType(ai) || ai.equals("user")) {
+                return null;
+            }
+            return new LoadGenerator(new InetSocketAddress(host, port), connections, games, ai);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Open all the connections, play all their games and print the results.
+     */
+    void run() throws IOException {
+        System.out.println("Playing " + gamesPerConnection + " games against " + ai + " on each of " + connections +
+                " connections to " + server + "...");
+        long start = System.nanoTime();
+
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < connections; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.connect(server);
+                channel.register(selector, SelectionKey.OP_CONNECT, new Connection(channel));
+                openConnections++;
+            }
+
+            while (openConnections > 0) {
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            connection.connected(key);
+                        } else {
+                            if (key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        }
+                    } catch (IOException e) {
+                        System.out.println("Connection failed: " + e.getMessage());
+                        errors++;
+                        connection.close();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long games = userWins + aiWins + draws;
+        System.out.printf("%d games in %.2f s: %.0f games per second.%n", games, seconds, games / seconds);
+        System.out.printf("User wins: %d, %s wins: %d, draws: %d, errors: %d%n", userWins, ai, aiWins, draws, errors);
+        System.out.println(answerLatency.count() + " answers: " + answerLatency.summary());
+    }
+
+    /**
+     * One connection, playing its games one after the other.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private final ByteBuffer in = ByteBuffer.allocate(1024);
+        private final ByteBuffer out = ByteBuffer.allocate(MAX_PENDING_BYTES);
+        private int gamesLeft = gamesPerConnection;
+
+        /* The indexes of the empty cells of the last table, to pick a move among. */
+        private final int[] emptyCells = new int[Grid.MAX_SIZE * Grid.MAX_SIZE];
+
+        /* The last table received, and when the last line that asks for an answer was sent. */
+        private String board;
+        private long sentAt;
+        private boolean closed;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void connected(SelectionKey key) throws IOException {
+            channel.finishConnect();
+            this.key = key;
+            key.interestOps(SelectionKey.OP_READ);
+            sendStart();
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                throw new IOException("closed by the server");
+            }
+            in.flip();
+            int lineStart = 0;
+            for (int i = 0; i < in.limit() && !closed; i++) {
+                if (in.get(i) == '\n') {
+                    handle(new String(in.array(), lineStart, i - lineStart, StandardCharsets.US_ASCII));
+                    lineStart = i + 1;
+                }
+            }
+            in.position(lineStart);
+            in.compact();
+        }
+
+        private void handle(String line) throws IOException {
+            if (line.startsWith("BOARD ")) {
+                board = line.substring(6);
+            } else if (line.startsWith("TURN ")) {
+                answerLatency.record(System.nanoTime() - sentAt);
+                sendMove(randomEmptyCell());
+            } else if (line.startsWith("OVER ")) {
+                answerLatency.record(System.nanoTime() - sentAt);
+                GameState result = GameState.valueOf(line.substring(5));
+                if (result == GameState.X_WINS) {
+                    userWins++;
+                } else if (result == GameState.O_WINS) {
+                    aiWins++;
+                } else {
+                    draws++;
+                }
+                nextGame();
+            } else if (line.startsWith("ERROR ")) {
+                if (errors++ < 10) {
+                    System.out.println("Server error: " + line.substring(6));
+                }
+                /* The game won't go on after an error: no TURN or OVER would come. */
+                nextGame();
+            }
+        }
+
+        /**
+         * Start the next game, or quit if all the games were played.
+         */
+        private void nextGame() throws IOException {
+            if (--gamesLeft > 0) {
+                sendStart();
+            } else {
+                put("quit");
+                send();
+                close();
+            }
+        }
+
+        /**
+         * Returns the index of a random empty cell of the last table, which must not be full.
+         */
+        private int randomEmptyCell() {
+            /* A single draw among the empty cells, however few they are. */
+            int emptyCount = 0;
+            for (int index = 0; index < board.length(); index++) {
+                if (board.charAt(index) == '_') {
+                    emptyCells[emptyCount++] = index;
+                }
+            }
+            return emptyCells[random.nextInt(emptyCount)];
+        }
+
+        private void sendStart() throws IOException {
+            put("start user ").put(ai);
+            send();
+        }
+
+        private void sendMove(int index) throws IOException {
+            int digits = 1;
+            for (int rest = index; rest >= 10; rest /= 10) {
+                digits *= 10;
+            }
+            for (; digits > 0; digits /= 10) {
+                put((char) ('0' + index / digits % 10));
+            }
+            send();
+        }
+
+        /**
+         * Queue these ASCII characters of the line being sent.
+         */
+        private Connection put(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                put(text.charAt(i));
+            }
+            return this;
+        }
+
+        private void put(char c) throws IOException {
+            if (!out.hasRemaining()) {
+                throw new IOException("the server stopped reading");
+            }
+            out.put((byte) c);
+        }
+
+        /**
+         * End the line queued and write as much as the connection takes now. The rest is written when the
+         * connection can take it.
+         */
+        private void send() throws IOException {
+            put('\n');
+            sentAt = System.nanoTime();
+            write();
+        }
+
+        void write() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            openConnections--;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Closed anyway.
+            }
+        }
+    }
+}
@@ -1,20 +1,30 @@
 package tictactoe;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class Main {
 
-    private static final String GAME_NOT_FINISHED = "Game not finished";
+    /* Whether the AI thinks about its replies while a human thinks about the move.
+     * Run with -Dtictactoe.ponder=true to turn it on. */
+    private static final boolean PONDER = Boolean.getBoolean("tictactoe.ponder");
 
-    /* Table of the game where each cell is represented by its index. */
-    static int[] table;
-
-    private static int emptyCellsCount;
+    /* While the AI thinks, a dot is shown every this many milliseconds. */
+    private static final long THINKING_DOT_MILLIS = 500L;
 
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
 
         String playerX, playerO;
+        Game game;
         while (true) {
             printIntro();
             String[] startGameParams = sc.nextLine().split(" ");
@@ -23,177 +33,271 @@ public class Main {
                 return;
             }
 
-            /* A valid input format would be: start <playerX> <playerO> */
-            if (startGameParams.length != 3 || !startGameParams[0].equals("start") ||
-                    !validPlayerType(startGameParams[1]) || !validPlayerType(startGameParams[2])) {
-                System.out.println("Bad parameters!");
-            } else {
-                // The input is valid.
-                playerX = startGameParams[1];
-                playerO = startGameParams[2];
-                break;
+            /* Simulations are played by AI players only, without printing the tables. */
+            if (startGameParams[0].equals("simulate")) {
+                Simulation simulation = Simulation.parse(startGameParams);
+                if (simulation == null) {
+                    System.out.println("Bad parameters!");
+                    continue;
+                }
+                simulation.run();
+                return;
             }
-        }
 
-        /* Start by printing an empty field. */
-        table = new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8};
-        emptyCellsCount = 9;
-        printTable(table);
+            /* A round robin between AI players, with their Elo ratings: tournament <games> [players] [size] [k] */
+            if (startGameParams[0].equals("tournament")) {
+                Tournament tournament = Tournament.parse(startGameParams);
+                if (tournament == null) {
+                    System.out.println("Bad parameters!");
+                    continue;
+                }
+                tournament.run();
+                return;
+            }
 
-        Player player1, player2;
+            /* Ultimate Tic-Tac-Toe, on screen or many games between AI players: ultimate <playerX> <playerO> [games] */
+            if (startGameParams[0].equals("ultimate")) {
+                UltimateMatch match = UltimateMatch.parse(startGameParams);
+                if (match == null) {
+                    System.out.println("Bad parameters!");
+                    continue;
+                }
+                match.run(sc);
+                return;
+            }
 
-        /* Determine who will be the X player and the O player. */
-        if (playerX.equals("user")) {
-            player1 = new HumanPlayer('X');
-        } else {
-            player1 = new ComputerPlayer(playerX, 'X');
-        }
+            /* Host games over TCP: server [port] */
+            if (startGameParams[0].equals("server")) {
+                try {
+                    int port = startGameParams.length > 1 ? Integer.parseInt(startGameParams[1])
+                            : GameServer.DEFAULT_PORT;
+                    new GameServer(port).run();
+                } catch (NumberFormatException e) {
+                    System.out.println("Bad parameters!");
+                    continue;
+                } catch (IOException e) {
+                    System.out.println("Can't serve games: " + e.getMessage());
+                }
+                return;
+            }
 
-        if (playerO.equals("user")) {
-            player2 = new HumanPlayer('O');
-        } else {
-            player2 = new ComputerPlayer(playerO, 'O');
-        }
+            /* Load a server with many games at once: load <connections> <games> [ai] [host] [port] */
+            if (startGameParams[0].equals("load")) {
+                LoadGenerator loadGenerator = LoadGenerator.parse(startGameParams);
+                if (loadGenerator == null) {
+                    System.out.println("Bad parameters!");
+                    continue;
+                }
+                try {
+                    loadGenerator.run();
+                } catch (IOException e) {
+                    System.out.println("Can't load the server: " + e.getMessage());
+                }
+                return;
+            }
 
-        /* Game state can be one of four possible values:
-         * - Game not finished.
-         * - Draw.
-         * - X wins.
-         * - O wins.
-         * */
-        while (true) {
+            /* Solve the game again and save the table the hard AI looks its moves up in: solve [file] */
+            if (startGameParams[0].equals("solve")) {
+                if (startGameParams.length > 2) {
+                    System.out.println("Bad parameters!");
+                    continue;
+                }
+                Path file = startGameParams.length == 2 ? Paths.get(startGameParams[1]) : SolvedTable.DEFAULT_FILE;
+                try {
+                    long start = System.nanoTime();
+                    int positions = SolvedTable.write(file);
+                    System.out.printf("Saved %d positions to %s in %.1f ms.%n", positions, file,
+                            (System.nanoTime() - start) / 1e6);
+                } catch (IOException e) {
+                    System.out.println("Can't save the solved table: " + e.getMessage());
+                }
+                return;
+            }
 
-            player1.makeMove();
-            doAfterEachMove();
+            /* Walk the whole game tree, and check the hard AI against it: analyze [file] */
+            if (startGameParams[0].equals("analyze")) {
+                if (startGameParams.length > 2) {
+                    System.out.println("Bad parameters!");
+                    continue;
+                }
+                try {
+                    new GameTreeAnalysis().run(startGameParams.length == 2 ? Paths.get(startGameParams[1]) : null);
+                } catch (IOException e) {
+                    System.out.println("Can't save the positions: " + e.getMessage());
+                }
+                return;
+            }
 
-            if (getGameState().equals(GAME_NOT_FINISHED)) {
-                player2.makeMove();
-                doAfterEachMove();
-            } else {
-                // GAME OVER
-                break;
+            /* Summarize a file of game records: records <file> */
+            if (startGameParams[0].equals("records")) {
+                if (startGameParams.length != 2) {
+                    System.out.println("Bad parameters!");
+                    continue;
+                }
+                try {
+                    new RecordSummary(Paths.get(startGameParams[1])).run();
+                } catch (IOException e) {
+                    System.out.println("Can't read the game records: " + e.getMessage());
+                }
+                return;
             }
-        }
 
-        System.out.println(getGameState());
-    }
+            /* A valid input format would be: start <playerX> <playerO> [size] [k] */
+            if (startGameParams.length < 3 || startGameParams.length > 5 || !startGameParams[0].equals("start") ||
+                    !validPlayerType(startGameParams[1]) || !validPlayerType(startGameParams[2])) {
+                System.out.println("Bad parameters!");
+                continue;
+            }
 
-    private static void printIntro() {
-        System.out.println("\\************************************************\\" + "\n" +
-                "> To start the game, type:" + "\n" +
-                "start <playerX> <playerO>" + "\n" +
-                "> Substitute <playerX>/<playerO> with any of the following:" + "\n" +
-                "user -> for a human player." + "\n" +
-                "hard/medium/easy -> for an AI player." + "\n\n" +
-                "> For example: start user hard" + "\n" +
-                "\\************************************************\\" + "\n" +
-                "Input command: ");
-    }
+            try {
+                /* The classic 3x3 table by default. K defaults to the size, up to five in a row. */
+                int size = startGameParams.length > 3 ? Integer.parseInt(startGameParams[3]) : 3;
+                int k = startGameParams.length > 4 ? Integer.parseInt(startGameParams[4]) : Math.min(size, 5);
+                game = new Game(size, k);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Bad parameters! The size should be from " + Grid.MIN_SIZE + " to " +
+                        Grid.MAX_SIZE + " and K from 3 to the size.");
+                continue;
+            }
 
-    private static void doAfterEachMove() {
-        emptyCellsCount--;
-        printTable(table);
-    }
+            // The input is valid.
+            playerX = startGameParams[1];
+            playerO = startGameParams[2];
+            break;
+        }
 
-    private static boolean validPlayerType(String playerType) {
-        return playerType.equals("user") || playerType.equals("hard") ||
-                playerType.equals("medium") || playerType.equals("easy");
-    }
+        /* Start by drawing an empty field. The renderer is closed however the game ends, so the frames it
+         * buffered are written out and its file or socket is released. */
+        try (Renderer renderer = Renderer.fromProperties()) {
+            renderer.table(game.grid(), false);
 
-    private static String getGameState() {
-        /* Check whether there is at least one row or column or diagonal of Xs. */
-        boolean atLeastOneRowOfX =
-                (table[0] == 'X' && table[1] == 'X' && table[2] == 'X') ||
-                        (table[3] == 'X' && table[4] == 'X' && table[5] == 'X') ||
-                        (table[6] == 'X' && table[7] == 'X' && table[8] == 'X') ||
-                        (table[0] == 'X' && table[3] == 'X' && table[6] == 'X') ||
-                        (table[1] == 'X' && table[4] == 'X' && table[7] == 'X') ||
-                        (table[2] == 'X' && table[5] == 'X' && table[8] == 'X') ||
-                        (table[0] == 'X' && table[4] == 'X' && table[8] == 'X') ||
-                        (table[2] == 'X' && table[4] == 'X' && table[6] == 'X');
-
-        /* Check whether there is at least one row or column or diagonal of Os. */
-        boolean atLeastOneRowOfO =
-                (table[0] == 'O' && table[1] == 'O' && table[2] == 'O') ||
-                        (table[3] == 'O' && table[4] == 'O' && table[5] == 'O') ||
-                        (table[6] == 'O' && table[7] == 'O' && table[8] == 'O') ||
-                        (table[0] == 'O' && table[3] == 'O' && table[6] == 'O') ||
-                        (table[1] == 'O' && table[4] == 'O' && table[7] == 'O') ||
-                        (table[2] == 'O' && table[5] == 'O' && table[8] == 'O') ||
-                        (table[0] == 'O' && table[4] == 'O' && table[8] == 'O') ||
-                        (table[2] == 'O' && table[4] == 'O' && table[6] == 'O');
-
-        if (atLeastOneRowOfX) {
-            return "X wins";
-        }
+            Player player1, player2;
 
-        if (atLeastOneRowOfO) {
-            return "O wins";
-        }
+            /* Determine who will be the X player and the O player. */
+            if (playerX.equals("user")) {
+                player1 = new HumanPlayer('X', sc);
+            } else {
+                player1 = new ComputerPlayer(playerX, 'X');
+            }
 
-        if (emptyCellsCount == 0) {
-            return "Draw";
-        }
+            if (playerO.equals("user")) {
+                player2 = new HumanPlayer('O', sc);
+            } else {
+                player2 = new ComputerPlayer(playerO, 'O');
+            }
 
-        return GAME_NOT_FINISHED;
-    }
+            /* The AI thinks on these threads, so the game loop stays free while it does. */
+            ExecutorService aiThreads = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "ai");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Pondering pondering = null;
+
+            Player currentPlayer = player1;
+            while (true) {
+
+                Player opponent = currentPlayer == player1 ? player2 : player1;
+                if (currentPlayer instanceof ComputerPlayer) {
+                    ComputerPlayer computer = (ComputerPlayer) currentPlayer;
+                    game.play(awaitMove(computer.chooseMoveAsync(game, aiThreads, pondering)));
+                } else {
+                    /* Let the AI think about its replies while the human thinks about the move. */
+                    if (PONDER && opponent instanceof ComputerPlayer) {
+                        pondering = ((ComputerPlayer) opponent).ponder(game, aiThreads);
+                    }
+                    currentPlayer.makeMove(game);
+                    if (pondering != null) {
+                        pondering.stop();
+                    }
+                }
+                renderer.table(game.grid(), game.isOver());
+
+                /* Game state can be one of four possible values:
+                 * - Game not finished.
+                 * - Draw.
+                 * - X wins.
+                 * - O wins.
+                 * */
+                if (game.state() == GameState.NOT_FINISHED) {
+                    currentPlayer = opponent;
+                } else {
+                    // GAME OVER
+                    break;
+                }
+            }
+        }
 
-    /**
-     * Returns true if this cell is empty or not.
-     *
-     * @param index of the cell to check.
-     * @return true if the cell is empty, otherwise false.
-     */
-    public static boolean isCellEmpty(int index) {
-        return table[index] != 'X' && table[index] != 'O';
+        System.out.println(game.state());
+        if (Metrics.ENABLED) {
+            Metrics.gameOver(game.state());
+            System.err.print(Metrics.dump());
+        }
     }
 
     /**
-     * Print the passed table.
+     * Wait for the move of the AI, showing a dot every THINKING_DOT_MILLIS while it's thinking.
      *
-     * @param table the table to be printed.
+     * @return the index of the cell to play.
      */
-    private static void printTable(int[] table) {
-        System.out.print("---------\n");
-        System.out.print("| ");
-
-        /* Print X and O as characters, otherwise, print the index for each cell. */
-        for (int i = 0; i < table.length; i++) {
-            if (table[i] == 88) {
-                System.out.print('X' + " ");
-            } else if (table[i] == 79) {
-                System.out.print('O' + " ");
-            } else {
-                System.out.print('_' + " ");
-            }
-
-            // For proper formatting.
-            if (i == 2 || i == 5) {
-                System.out.print("| \n| ");
-            }
-            if (i == 8) {
-                System.out.println("|");
+    private static int awaitMove(CompletableFuture<Integer> move) {
+        boolean dots = false;
+        try {
+            while (true) {
+                try {
+                    int index = move.get(THINKING_DOT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (dots) {
+                        System.out.println();
+                    }
+                    return index;
+                } catch (TimeoutException e) {
+                    System.out.print(".");
+                    dots = true;
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the AI was thinking", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The AI failed to make a move", e.getCause());
         }
+    }
 
-        System.out.print("---------\n");
+    private static void printIntro() {
+        StringBuilder players = new StringBuilder("user -> for a human player.\n");
+        for (MoveStrategyProvider strategy : MoveStrategies.providers()) {
+            players.append(strategy.name()).append(" -> ").append(strategy.description()).append("\n");
+        }
 
+        System.out.println("\\************************************************\\" + "\n" +
+                "> To start the game, type:" + "\n" +
+                "start <playerX> <playerO> [size] [k]" + "\n" +
+                "> Substitute <playerX>/<playerO> with any of the following:" + "\n" +
+                players + "\n" +
+                "> Optionally, play on a size x size table where k in a row win (3x3 by default)." + "\n" +
+                "> Cells are numbered row by row, from 0 to size * size - 1." + "\n\n" +
+                "> For example: start user hard, or start user hard 15 5" + "\n\n" +
+                "> To play many games between AI players without printing them, type:" + "\n" +
+                "simulate <playerX> <playerO> <games> [size] [k]" + "\n\n" +
+                "> To rate AI players by playing games between every two of them (all of them by default), type:" +
+                "\n" + "tournament <games> [player,player,...] [size] [k]" + "\n\n" +
+                "> To play ultimate Tic-Tac-Toe (nine 3x3 boards in a 3x3 board, cells numbered 0 to 80) with" +
+                "\n" + "user, easy or hard players, or that many games between AI players, type:" + "\n" +
+                "ultimate <playerX> <playerO> [games]" + "\n\n" +
+                "> To summarize the games recorded by simulate with -Dtictactoe.recordFile=<file>, type:" + "\n" +
+                "records <file>" + "\n\n" +
+                "> To save the solved 3x3 game the hard AI looks its moves up in, type:" + "\n" +
+                "solve [file]" + "\n\n" +
+                "> To analyze every possible 3x3 game and check the hard AI against the analysis, type:" + "\n" +
+                "analyze [file]" + "\n\n" +
+                "> To host games over TCP, or to load a server with many games at once, type:" + "\n" +
+                "server [port]" + "\n" +
+                "load <connections> <games> [ai] [host] [port]" + "\n" +
+                "\\************************************************\\" + "\n" +
+                "Input command: ");
     }
 
-
+    static boolean validPlayerType(String playerType) {
+        return playerType.equals(MoveStrategies.USER) || MoveStrategies.exists(playerType);
+    }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
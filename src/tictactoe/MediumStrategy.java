@@ -0,0 +1,85 @@
+package tictactoe;
+
+import java.util.SplittableRandom;
+
+/**
+ * The "medium" level difficulty makes a move using the following process:
+ * - If it can win in one move (if it has two in a row), it places a third to get three in a row and win.
+ * - If the opponent can win in one move, it plays the third itself to block the opponent to win.
+ * - Otherwise, it makes a random move.
+ */
+final class MediumStrategy implements MoveStrategy {
+
+    /* The random numbers, drawn from one generator for all the moves, replaced when seeded. */
+    private SplittableRandom random = new SplittableRandom();
+
+    @Override
+    public int chooseMove(Grid grid, char player) {
+
+        /* Get the index of the winning move, if exists. */
+        int winningMoveIndex = getCrucialMoveIndex(grid, player, CrucialMove.WINNING);
+        /* Is there a winning move? If so, play it and win. */
+        if (winningMoveIndex > -1) {
+            return winningMoveIndex;
+        }
+
+        /* Get the index of a blocking move, if exists. */
+        int blockingMoveIndex = getCrucialMoveIndex(grid, player, CrucialMove.BLOCKING);
+        /* Is there a blocking move? If so, play it and block the opponent from winning. */
+        if (blockingMoveIndex > -1) {
+            return blockingMoveIndex;
+        }
+
+        /* If there is no winning move or a blocking move, just make a random move. */
+        return ComputerPlayer.randomEmptyCell(grid, random);
+    }
+
+    @Override
+    public void seed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Returns the index of a crucial move, if exists. Otherwise, returns -1.
+     * The crucial move might be:
+     * - a winning move: two of the symbols in a row so this method returns the index
+     * of the third cell to win the game.
+     * - a blocking move: two of the opponent's symbol in a row so this method returns the index
+     * of the third cell to stop the win.
+     *
+     * @param grid:     the table to search for the move.
+     * @param player:   the symbol of the player to move.
+     * @param moveMode: winning or blocking move.
+     * @return the index of a crucial move if exists, otherwise -1.
+     */
+    static int getCrucialMoveIndex(Grid grid, char player, CrucialMove moveMode) {
+        /* If the mode is winning, then the symbol to search for (two in a row) should be the player's symbol.
+         *If the mode is blocking, then the symbol to search for (two in a row) should be opponent's symbol. */
+        char charToSearchFor = moveMode == CrucialMove.WINNING ? player : Board.opponent(player);
+
+        /* On bigger tables, check every line for K - 1 of the symbols and an empty cell. */
+        if (!grid.isClassic()) {
+            return grid.crucialCell(charToSearchFor);
+        }
+
+        /* Check every line and see if filling its only empty cell would make the player win or blocking
+         * the opponent from winning. For example, cell 0 is a crucial cell if any of the following is true:
+         * - index 1 and 2 have two of the same symbol.
+         * - index 3 and 6 have two of the same symbol.
+         * - index 4 and 8 have two of the same symbol.
+         * All crucial cells are collected so the lowest index among them is returned.
+         */
+        int crucialCells = Board.crucialCells(grid.bits(), charToSearchFor);
+        return crucialCells == 0 ? -1 : Integer.numberOfTrailingZeros(crucialCells);
+    }
+
+    /**
+     * The kinds of crucial moves (see getCrucialMoveIndex()).
+     */
+    enum CrucialMove {
+        /* Completes a line of the player's symbols. */
+        WINNING,
+        /* Completes a line of the opponent's symbols, before the opponent does. */
+        BLOCKING
+    }
+}
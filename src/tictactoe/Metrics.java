@@ -0,0 +1,132 @@
+package tictactoe;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * What the engine is doing: the games finished and how they ended, and the moves of the AI by difficulty level
+ * (see MoveMetrics). They are exposed as JMX MBeans, under the tictactoe domain, and printed to the standard error
+ * every few seconds.
+ * <p>
+ * Run with -Dtictactoe.metrics=true to turn them on, and with -Dtictactoe.metricsDumpSeconds=<seconds> to change
+ * how often they're printed (10 seconds by default, 0 not to print them). When they are off, every place that
+ * records them checks the ENABLED constant first, so the JIT compiles the recording away.
+ */
+final class Metrics implements GameMetricsMBean {
+
+    static final boolean ENABLED = Boolean.getBoolean("tictactoe.metrics");
+
+    private static final long DUMP_SECONDS = Long.getLong("tictactoe.metricsDumpSeconds", 10L);
+
+    private static final Metrics GAMES = new Metrics();
+
+    /* The moves by difficulty level, registered as MBeans when first recorded. */
+    private static final ConcurrentMap<String, MoveMetrics> MOVES = new ConcurrentHashMap<>();
+
+    static {
+        if (ENABLED) {
+            /* The class isn't named after its MBean interface, so it's wrapped to be registered. */
+            try {
+                register("tictactoe:type=Games", new StandardMBean(GAMES, GameMetricsMBean.class));
+            } catch (JMException e) {
+                System.err.println("Can't register the metrics of the games: " + e.getMessage());
+            }
+            if (DUMP_SECONDS > 0) {
+                ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "metrics");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                dumper.scheduleAtFixedRate(() -> System.err.print(dump()), DUMP_SECONDS, DUMP_SECONDS,
+                        TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private final LongAdder xWins = new LongAdder();
+    private final LongAdder oWins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+
+    private Metrics() {
+    }
+
+    /**
+     * Record how a game ended. Only call it when ENABLED.
+     */
+    static void gameOver(GameState state) {
+        switch (state) {
+            case X_WINS:
+                GAMES.xWins.increment();
+                break;
+            case O_WINS:
+                GAMES.oWins.increment();
+                break;
+            case DRAW:
+                GAMES.draws.increment();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the metrics of the moves of this difficulty level. Only call it when ENABLED.
+     */
+    static MoveMetrics moves(String difficulty) {
+        return MOVES.computeIfAbsent(difficulty, key -> {
+            MoveMetrics moves = new MoveMetrics(difficulty);
+            register("tictactoe:type=Moves,difficulty=" + ObjectName.quote(difficulty), moves);
+            return moves;
+        });
+    }
+
+    /**
+     * Returns all the metrics as text, one line per difficulty level.
+     */
+    static String dump() {
+        StringBuilder dump = new StringBuilder();
+        dump.append(String.format("[metrics] %d games: X wins %d, O wins %d, draws %d%n", GAMES.getGamesCompleted(),
+                GAMES.getXWins(), GAMES.getOWins(), GAMES.getDraws()));
+        for (Map.Entry<String, MoveMetrics> moves : MOVES.entrySet()) {
+            dump.append("[metrics] ").append(moves.getValue()).append(System.lineSeparator());
+        }
+        return dump.toString();
+    }
+
+    private static void register(String name, Object mbean) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, new ObjectName(name));
+        } catch (JMException e) {
+            System.err.println("Can't register the metrics " + name + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long getGamesCompleted() {
+        return xWins.sum() + oWins.sum() + draws.sum();
+    }
+
+    @Override
+    public long getXWins() {
+        return xWins.sum();
+    }
+
+    @Override
+    public long getOWins() {
+        return oWins.sum();
+    }
+
+    @Override
+    public long getDraws() {
+        return draws.sum();
+    }
+}
@@ -0,0 +1,398 @@
+package tictactoe;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The Monte Carlo tree search (MCTS) AI: instead of scoring every position, it plays many random games (playouts)
+ * from the table and plays the move that led to the most promising ones. It works on tables of any size, and
+ * its cost is set by the number of playouts and the time budget per move, whichever runs out first.
+ * <p>
+ * Every playout walks down a tree of the positions seen so far, picking at every position the move with the
+ * best UCT value (its win rate plus a bonus for the moves tried less often), adds the children of the position
+ * it stopped at, finishes the game with random moves and counts the result in every position on its way.
+ * The move tried most often from the table is played.
+ * <p>
+ * The tree is kept in arrays indexed by node, which grow as needed and are reused across moves, and the playouts
+ * take their moves back when they're done, so a search allocates nothing once warmed up. A parallel search grows
+ * one tree per pool thread (root parallelism) and adds up how often each tree tried each move.
+ * <p>
+ * It's the strategy of the mcts level.
+ */
+final class MonteCarloSearch implements MoveStrategy {
+
+    /* Number of playouts per move of the mcts level, within the think time.
+     * Run with -Dtictactoe.playouts=<playouts> to change it. */
+    static final long PLAYOUTS = Long.getLong("tictactoe.playouts", 10_000L);
+
+    /* How much the UCT value favours the moves tried less often, sqrt(2) in theory. */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    /* The tree starts with room for this many nodes and doubles up to MAX_NODES. Playouts that reach a full
+     * tree don't add nodes any more. */
+    private static final int INITIAL_NODES = 1 << 12;
+    private static final int MAX_NODES = 1 << 21;
+
+    /* On big tables, only the empty cells at most this far (in rows and columns) from a taken cell are added
+     * to the tree. The playouts still play anywhere. */
+    private static final int BIG_TABLE_SIZE = 7;
+    private static final int NEIGHBOUR_RADIUS = 2;
+
+    /* The child count of a node whose children were not added yet. */
+    private static final int NOT_EXPANDED = -1;
+
+    private final long playouts;
+    private final long budgetNanos;
+    private final boolean parallel;
+
+    /* The searches of the other trees, one per pool thread, reused across moves. */
+    private final ThreadLocal<MonteCarloSearch> helpers;
+
+    /* Set from another thread to stop the search early (see setStopped()), shared with the helpers. */
+    private final AtomicBoolean stopped;
+
+    private SplittableRandom random = new SplittableRandom();
+
+    private Grid grid;
+
+    /* The tree: for every node, the cell played to reach it, how many playouts went through it, their score in
+     * half points for the player who played that cell (2 for a win, 1 for a draw), and its children, which are
+     * stored next to each other. The root is node 0. */
+    private int[] moves;
+    private int[] visits;
+    private int[] scores;
+    private int[] firstChild;
+    private int[] childCount;
+    private int nodeCount;
+
+    /* The nodes visited and the cells played by the current playout. */
+    private int[] path;
+    private int[] playedCells;
+
+    /* How often each root move was tried, by cell, added up over all the trees. */
+    private int[] rootVisits;
+
+    private long lastPlayouts;
+
+    /**
+     * Create the search of the mcts level, which runs on all cores with -Dtictactoe.parallelSearch=true.
+     */
+    MonteCarloSearch() {
+        this(PLAYOUTS, ComputerPlayer.THINK_MILLIS, ComputerPlayer.PARALLEL_SEARCH);
+    }
+
+    /**
+     * Create a search.
+     *
+     * @param playouts     the number of playouts per move.
+     * @param budgetMillis the time it may think about a move, in milliseconds, even if not all playouts are done.
+     * @param parallel     whether the playouts run on all cores, one tree per core.
+     */
+    MonteCarloSearch(long playouts, long budgetMillis, boolean parallel) {
+        this(playouts, budgetMillis, parallel, new AtomicBoolean());
+    }
+
+    private MonteCarloSearch(long playouts, long budgetMillis, boolean parallel, AtomicBoolean stopped) {
+        this.playouts = playouts;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.parallel = parallel;
+        this.stopped = stopped;
+        this.helpers = parallel
+                ? ThreadLocal.withInitial(() -> new MonteCarloSearch(playouts, budgetMillis, false, stopped)) : null;
+    }
+
+    /**
+     * Returns the index of the best cell to play on this table for this player. The table is not changed.
+     */
+    int bestMove(Grid table, char player) {
+        long deadline = System.nanoTime() + budgetNanos;
+        setTable(table);
+        if (rootVisits == null || rootVisits.length != grid.cellCount()) {
+            rootVisits = new int[grid.cellCount()];
+        }
+        Arrays.fill(rootVisits, 0);
+
+        if (parallel) {
+            lastPlayouts = growTreesInParallel(table, player, deadline);
+        } else {
+            lastPlayouts = grow(player, playouts, deadline);
+            addRootVisits(rootVisits);
+        }
+
+        /* The move tried most often, the lowest index on a tie. */
+        int bestMove = -1;
+        for (int index = 0; index < rootVisits.length; index++) {
+            if (grid.isCellEmpty(index) && (bestMove == -1 || rootVisits[index] > rootVisits[bestMove])) {
+                bestMove = index;
+            }
+        }
+        return bestMove;
+    }
+
+    @Override
+    public int chooseMove(Grid grid, char player) {
+        return bestMove(grid, player);
+    }
+
+    @Override
+    public long lastSearchNodes() {
+        return lastPlayouts;
+    }
+
+    @Override
+    public String describeLastMove() {
+        return "Played " + lastPlayouts + " random games.";
+    }
+
+    /**
+     * Seed the random moves of the playouts, so the same searches pick the same moves again. Only a search that
+     * runs on one thread and finishes its playouts within its time budget is fully reproducible.
+     */
+    @Override
+    public void seed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Stop the searches, or let them run again. While stopped, every tree stops after the playout it's running
+     * (or after its first one) and the search returns the move tried most often so far.
+     */
+    @Override
+    public void setStopped(boolean stopped) {
+        this.stopped.set(stopped);
+    }
+
+    /**
+     * Returns the number of playouts run by the last call to bestMove(), over all the trees.
+     */
+    long playouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * Grow one tree on the calling thread and one on every pool thread, each with its share of the playouts
+     * and its own copy of the table, and add up how often they tried each root move.
+     *
+     * @return the number of playouts run.
+     */
+    private long growTreesInParallel(Grid table, char player, long deadline) {
+        int trees = ForkJoinPool.getCommonPoolParallelism() + 1;
+        long treePlayouts = (playouts + trees - 1) / trees;
+
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[trees];
+        long[] treeResults = new long[trees];
+        for (int i = 1; i < trees; i++) {
+            int tree = i;
+            tasks[i] = ForkJoinPool.commonPool().submit(() -> {
+                MonteCarloSearch helper = helpers.get();
+                helper.setTable(table);
+                treeResults[tree] = helper.grow(player, treePlayouts, deadline);
+                synchronized (rootVisits) {
+                    helper.addRootVisits(rootVisits);
+                }
+            });
+        }
+
+        long total = grow(player, treePlayouts, deadline);
+        synchronized (rootVisits) {
+            addRootVisits(rootVisits);
+        }
+        for (int i = 1; i < trees; i++) {
+            tasks[i].join();
+            total += treeResults[i];
+        }
+        return total;
+    }
+
+    /**
+     * Search on a copy of this table from now on.
+     */
+    private void setTable(Grid table) {
+        if (grid != null && grid.size() == table.size() && grid.k() == table.k()) {
+            grid.copyFrom(table);
+        } else {
+            grid = table.copy();
+            path = new int[grid.cellCount() + 1];
+            playedCells = new int[grid.cellCount()];
+        }
+        if (moves == null) {
+            resize(INITIAL_NODES);
+        }
+    }
+
+    /**
+     * Grow a new tree from the table for this player to move, until the playouts or the time run out, or the
+     * search is stopped. At least one playout is run.
+     *
+     * @return the number of playouts run.
+     */
+    private long grow(char player, long maxPlayouts, long deadline) {
+        nodeCount = 1;
+        moves[0] = -1;
+        visits[0] = 0;
+        scores[0] = 0;
+        childCount[0] = NOT_EXPANDED;
+
+        long count = 0;
+        do {
+            playout(player);
+            count++;
+        } while (count < maxPlayouts && System.nanoTime() < deadline && !stopped.get());
+        return count;
+    }
+
+    /**
+     * Walk down the tree to a node, add its children, finish the game from there with random moves, count
+     * the result on the way back up and take all the moves back.
+     */
+    private void playout(char player) {
+        int node = 0;
+        int depth = 0;
+        int played = 0;
+        char toMove = player;
+        path[depth++] = node;
+
+        /* Selection: follow the best UCT values down to a node without children yet. */
+        while (childCount[node] > 0) {
+            node = select(node);
+            grid.place(moves[node], toMove);
+            playedCells[played++] = moves[node];
+            toMove = Board.opponent(toMove);
+            path[depth++] = node;
+        }
+
+        /* Expansion: add the children of the node, then try one of them. */
+        if (childCount[node] == NOT_EXPANDED && expand(node)) {
+            if (childCount[node] > 0) {
+                node = select(node);
+                grid.place(moves[node], toMove);
+                playedCells[played++] = moves[node];
+                toMove = Board.opponent(toMove);
+                path[depth++] = node;
+            }
+        }
+
+        /* Simulation: random moves till the end of the game. */
+        while (grid.winner() == Grid.EMPTY && !grid.isFull()) {
+            int index = ComputerPlayer.randomEmptyCell(grid, random);
+            grid.place(index, toMove);
+            playedCells[played++] = index;
+            toMove = Board.opponent(toMove);
+        }
+
+        /* Backpropagation: the root was reached by the opponent's move, its children by the player's and so on. */
+        char winner = grid.winner();
+        char mover = Board.opponent(player);
+        for (int i = 0; i < depth; i++) {
+            int pathNode = path[i];
+            visits[pathNode]++;
+            scores[pathNode] += winner == Grid.EMPTY ? 1 : winner == mover ? 2 : 0;
+            mover = Board.opponent(mover);
+        }
+
+        while (played > 0) {
+            grid.remove(playedCells[--played]);
+        }
+    }
+
+    /**
+     * Returns the child of this node with the best UCT value, or its first child never tried.
+     */
+    private int select(int node) {
+        double logVisits = Math.log(visits[node]);
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+            if (visits[child] == 0) {
+                return child;
+            }
+            double value = scores[child] / (2.0 * visits[child]) + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Add the children of this node, one per move worth trying on the table. A finished game has none.
+     *
+     * @return false if the tree is full, so the node is left without children.
+     */
+    private boolean expand(int node) {
+        if (grid.winner() != Grid.EMPTY || grid.isFull()) {
+            childCount[node] = 0;
+            return true;
+        }
+        if (nodeCount + grid.emptyCount() > moves.length) {
+            if (moves.length == MAX_NODES) {
+                return false;
+            }
+            resize(Math.min(2 * moves.length, MAX_NODES));
+            if (nodeCount + grid.emptyCount() > moves.length) {
+                return false;
+            }
+        }
+
+        int size = grid.size();
+        int radius = size > BIG_TABLE_SIZE ? NEIGHBOUR_RADIUS : size;
+        firstChild[node] = nodeCount;
+        for (int index = 0; index < grid.cellCount(); index++) {
+            if (grid.isCellEmpty(index) && hasNeighbour(index, radius)) {
+                addChild(index);
+            }
+        }
+        /* An empty big table: start in the center. */
+        if (nodeCount == firstChild[node]) {
+            addChild(size / 2 * size + size / 2);
+        }
+        childCount[node] = nodeCount - firstChild[node];
+        return true;
+    }
+
+    private void addChild(int index) {
+        moves[nodeCount] = index;
+        visits[nodeCount] = 0;
+        scores[nodeCount] = 0;
+        childCount[nodeCount] = NOT_EXPANDED;
+        nodeCount++;
+    }
+
+    /**
+     * Returns true if there's a taken cell at most radius rows and columns away from this cell.
+     */
+    private boolean hasNeighbour(int index, int radius) {
+        int size = grid.size();
+        int row = index / size;
+        int column = index % size;
+        for (int r = Math.max(0, row - radius); r <= Math.min(size - 1, row + radius); r++) {
+            for (int c = Math.max(0, column - radius); c <= Math.min(size - 1, column + radius); c++) {
+                if (!grid.isCellEmpty(r * size + c)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add how often this tree tried each root move to these counts, by cell.
+     */
+    private void addRootVisits(int[] visitsByCell) {
+        for (int child = firstChild[0]; child < firstChild[0] + Math.max(childCount[0], 0); child++) {
+            visitsByCell[moves[child]] += visits[child];
+        }
+    }
+
+    private void resize(int capacity) {
+        moves = moves == null ? new int[capacity] : Arrays.copyOf(moves, capacity);
+        visits = visits == null ? new int[capacity] : Arrays.copyOf(visits, capacity);
+        scores = scores == null ? new int[capacity] : Arrays.copyOf(scores, capacity);
+        firstChild = firstChild == null ? new int[capacity] : Arrays.copyOf(firstChild, capacity);
+        childCount = childCount == null ? new int[capacity] : Arrays.copyOf(childCount, capacity);
+    }
+}
@@ -0,0 +1,133 @@
+package tictactoe;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the moves of the AI players of one difficulty level: how many, how long they took, how many positions
+ * were searched and how deep, and how often the transposition table had the answer.
+ * <p>
+ * The counters are LongAdders and every thread records its latencies into a histogram of its own, so threads
+ * recording moves at once don't wait for each other. The histograms are only added together when read.
+ */
+final class MoveMetrics implements MoveMetricsMBean {
+
+    private final String difficulty;
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder depths = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final List<LatencyHistogram> latencies = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<LatencyHistogram> threadLatency = ThreadLocal.withInitial(() -> {
+        LatencyHistogram latency = new LatencyHistogram();
+        latencies.add(latency);
+        return latency;
+    });
+
+    MoveMetrics(String difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Record one move.
+     *
+     * @param nanos       the time taken to pick the move.
+     * @param nodes       the positions searched (or random games played) to pick it.
+     * @param depth       the depth of the search, in moves, or 0 if there was none.
+     * @param cacheHits   the transposition table lookups that found a result.
+     * @param cacheMisses the transposition table lookups that didn't.
+     */
+    void record(long nanos, long nodes, int depth, long cacheHits, long cacheMisses) {
+        moves.increment();
+        this.nodes.add(nodes);
+        depths.add(depth);
+        maxDepth.accumulate(depth);
+        this.cacheHits.add(cacheHits);
+        this.cacheMisses.add(cacheMisses);
+
+        LatencyHistogram latency = threadLatency.get();
+        synchronized (latency) {
+            latency.record(nanos);
+        }
+    }
+
+    /**
+     * Returns all the latencies recorded so far, added together.
+     */
+    LatencyHistogram latency() {
+        LatencyHistogram total = new LatencyHistogram();
+        for (LatencyHistogram latency : latencies) {
+            synchronized (latency) {
+                total.add(latency);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public double getMeanNodesPerMove() {
+        long moveCount = moves.sum();
+        return moveCount == 0 ? 0 : (double) nodes.sum() / moveCount;
+    }
+
+    @Override
+    public double getMeanDepth() {
+        long moveCount = moves.sum();
+        return moveCount == 0 ? 0 : (double) depths.sum() / moveCount;
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long lookups = cacheHits.sum() + cacheMisses.sum();
+        return lookups == 0 ? 0 : 100.0 * cacheHits.sum() / lookups;
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return latency().mean() / 1e3;
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return latency().percentile(50) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return latency().percentile(99) / 1e3;
+    }
+
+    @Override
+    public double getLatencyMaxMicros() {
+        return latency().max() / 1e3;
+    }
+
+    @Override
+    public String toString() {
+        LatencyHistogram latency = latency();
+        return String.format("%s: %d moves, %.1f nodes per move, depth %.1f (max %d), cache hit rate %.1f%%, %s",
+                difficulty, getMoves(), getMeanNodesPerMove(), getMeanDepth(), getMaxDepth(), getCacheHitRate(),
+                latency.summary());
+    }
+}
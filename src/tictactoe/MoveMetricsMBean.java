@@ -0,0 +1,33 @@
+package tictactoe;
+
+/**
+ * The moves of the AI players of one difficulty level, as a JMX MBean (see Metrics).
+ */
+public interface MoveMetricsMBean {
+
+    long getMoves();
+
+    /**
+     * Returns the number of positions searched, or random games played by the MCTS level.
+     */
+    long getNodes();
+
+    double getMeanNodesPerMove();
+
+    double getMeanDepth();
+
+    int getMaxDepth();
+
+    /**
+     * Returns the percentage of the transposition table lookups that found a result.
+     */
+    double getCacheHitRate();
+
+    double getMeanLatencyMicros();
+
+    double getLatencyP50Micros();
+
+    double getLatencyP99Micros();
+
+    double getLatencyMaxMicros();
+}
@@ -0,0 +1,104 @@
+package tictactoe;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+/**
+ * The registry of the move strategies by name: the ones that come with the game, then the ones found with the
+ * ServiceLoader (see MoveStrategyProvider). A provider whose name is taken is ignored.
+ * The registry is filled once, when first used, and never changes afterwards, so it's safe to read from any thread.
+ */
+final class MoveStrategies {
+
+    /* The name of the human player, which no strategy can take. */
+    static final String USER = "user";
+
+    private static final Map<String, MoveStrategyProvider> PROVIDERS = new LinkedHashMap<>();
+
+    static {
+        register(new BuiltIn("easy", "for an AI player that plays random moves.", RandomStrategy::new));
+        register(new BuiltIn("medium", "for an AI player that wins or blocks in one move, or plays randomly.",
+                MediumStrategy::new));
+        register(new BuiltIn("hard", "for an AI player that plays perfectly.", HardStrategy::new));
+        register(new BuiltIn("mcts", "for an AI player that plays random games to pick its moves.",
+                MonteCarloSearch::new));
+        for (MoveStrategyProvider provider : ServiceLoader.load(MoveStrategyProvider.class)) {
+            register(provider);
+        }
+    }
+
+    private MoveStrategies() {
+    }
+
+    private static void register(MoveStrategyProvider provider) {
+        String name = provider.name();
+        if (name.equals(USER) || PROVIDERS.containsKey(name)) {
+            System.out.println("Ignoring the strategy " + provider.getClass().getName() + ": the name " + name +
+                    " is taken.");
+            return;
+        }
+        PROVIDERS.put(name, provider);
+    }
+
+    /**
+     * Returns whether there's a strategy with this name.
+     */
+    static boolean exists(String name) {
+        return PROVIDERS.containsKey(name);
+    }
+
+    /**
+     * Returns a new instance of the strategy with this name.
+     *
+     * @throws IllegalArgumentException if there's no strategy with this name.
+     */
+    static MoveStrategy create(String name) {
+        MoveStrategyProvider provider = PROVIDERS.get(name);
+        if (provider == null) {
+            throw new IllegalArgumentException("Unknown strategy " + name);
+        }
+        return provider.create();
+    }
+
+    /**
+     * Returns all the strategies, the ones that come with the game first.
+     */
+    static Collection<MoveStrategyProvider> providers() {
+        return Collections.unmodifiableCollection(PROVIDERS.values());
+    }
+
+    /**
+     * A strategy that comes with the game.
+     */
+    private static final class BuiltIn implements MoveStrategyProvider {
+
+        private final String name;
+        private final String description;
+        private final Supplier<MoveStrategy> factory;
+
+        BuiltIn(String name, String description, Supplier<MoveStrategy> factory) {
+            this.name = name;
+            this.description = description;
+            this.factory = factory;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String description() {
+            return description;
+        }
+
+        @Override
+        public MoveStrategy create() {
+            return factory.get();
+        }
+    }
+}
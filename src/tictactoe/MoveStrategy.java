@@ -0,0 +1,70 @@
+package tictactoe;
+
+/**
+ * How an AI player picks its moves. The strategies are created by name from the registry (see MoveStrategies),
+ * so a new one can be played with the start command without changing the players.
+ * <p>
+ * A strategy may keep state from move to move, like caches, search buffers and random numbers, which it never
+ * shares with other instances. So an instance must only be used by one thread at a time, but it can pick the moves
+ * of any number of games, for both players, as the moves only depend on the table and the player to move.
+ */
+interface MoveStrategy {
+
+    /**
+     * Returns the index of the cell to play on this table for this player. The table must not be changed.
+     *
+     * @param grid   the table, which is not full and has no winner.
+     * @param player the symbol of the player to move, X or O.
+     */
+    int chooseMove(Grid grid, char player);
+
+    /**
+     * Seed the random numbers of the strategy, if it draws any, so the same games are played again with the same
+     * seed.
+     */
+    default void seed(long seed) {
+    }
+
+    /**
+     * Stop the searches of the strategy, or let them run again. While stopped, a search returns as soon as it can
+     * with the best move it found so far. Unlike the other methods, it may be called from another thread than the
+     * one searching. Only the strategies that search within a time budget need it.
+     */
+    default void setStopped(boolean stopped) {
+    }
+
+    /**
+     * Returns the number of positions searched (or random games played) to pick the last move, or 0 if none.
+     */
+    default long lastSearchNodes() {
+        return 0;
+    }
+
+    /**
+     * Returns the depth of the search of the last move, in moves, or 0 if it doesn't search by depth.
+     */
+    default int lastSearchDepth() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of lookups in the cache of the strategy that found a result so far, or 0 if it has none.
+     */
+    default long cacheHits() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of lookups in the cache of the strategy that found nothing so far, or 0 if it has none.
+     */
+    default long cacheMisses() {
+        return 0;
+    }
+
+    /**
+     * Returns what the strategy did to pick the last move, to show to the user, or null if there's nothing to show.
+     */
+    default String describeLastMove() {
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package tictactoe;
+
+/**
+ * Creates the instances of a move strategy, which is played by its name. Besides the strategies that come with
+ * the game, providers are found with the ServiceLoader: list them in a file named
+ * META-INF/services/tictactoe.MoveStrategyProvider on the class path, one class name per line. The providers are
+ * public classes of the tictactoe package, with a public constructor without parameters.
+ */
+interface MoveStrategyProvider {
+
+    /**
+     * Returns the name the strategy is played by, in one word.
+     */
+    String name();
+
+    /**
+     * Returns what the strategy does, in a few words, for the list of players.
+     */
+    String description();
+
+    /**
+     * Returns a new instance of the strategy, to be used by one thread at a time (see MoveStrategy).
+     */
+    MoveStrategy create();
+}
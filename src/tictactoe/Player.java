@@ -8,7 +8,7 @@ public abstract class Player {
     /* X or O */
     char symbol;
 
-    /* Make a move by placing 'symbol' on the field. */
-    abstract void makeMove();
+    /* Make a move by placing 'symbol' on the field of this game. */
+    abstract void makeMove(Game game);
 
 }
\ No newline at end of file
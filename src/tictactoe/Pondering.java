@@ -0,0 +1,151 @@
+package tictactoe;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The AI thinking about its replies while its opponent thinks about its move: the most likely moves of the
+ * opponent are tried one after the other on a copy of the game, and the reply to each one is kept, so if the
+ * opponent plays one of them, the AI replies at once.
+ * <p>
+ * The likely moves are the cell that wins for the opponent, the cell that blocks the AI, then the cells next to
+ * a taken cell, then the others, up to MAX_MOVES moves. A pondering starts after the previous one of the same
+ * player is done, so they never share a search. stop() cuts the search being run short and keeps the pondering
+ * from trying more moves, so it doesn't take the CPU from the search of the real move.
+ */
+final class Pondering {
+
+    /* The most opponent's moves tried. */
+    private static final int MAX_MOVES = 24;
+
+    private final ComputerPlayer ponderer;
+    private final Game game;
+    private final int moveCount;
+
+    /* The reply by opponent's move, or -1 if not known (yet). */
+    private final AtomicIntegerArray replies;
+
+    private final CompletableFuture<Void> done;
+    private volatile boolean stopped;
+
+    /**
+     * Start thinking about the replies to the likely moves of the opponent in this game.
+     *
+     * @param ponderer the player that picks the replies, only used by this pondering until it's done.
+     * @param game     the game, where the opponent is to move.
+     * @param executor the threads to think on.
+     * @param previous the previous pondering of the same ponderer, or null.
+     */
+    Pondering(ComputerPlayer ponderer, Game game, Executor executor, Pondering previous) {
+        this.ponderer = ponderer;
+        this.game = game;
+        this.moveCount = game.moveCount();
+        this.replies = new AtomicIntegerArray(game.grid().cellCount());
+        for (int index = 0; index < replies.length(); index++) {
+            replies.set(index, -1);
+        }
+
+        /* Copied now, as the game changes as soon as the opponent moves. */
+        Game position = game.copy();
+        int[] likelyMoves = likelyMoves(position.grid(), position.turn());
+        CompletableFuture<?> previousDone = previous == null ? CompletableFuture.completedFuture(null)
+                : previous.done.handle((ignored, error) -> null);
+        this.done = previousDone.thenRunAsync(() -> think(position, likelyMoves), executor);
+    }
+
+    private void think(Game position, int[] likelyMoves) {
+        /* Stopped by the previous pondering. Checking stopped after this, and stop() setting it before stopping
+         * the ponderer, makes sure no search runs to its end after stop(). */
+        ponderer.setStopped(false);
+        for (int move : likelyMoves) {
+            if (stopped) {
+                return;
+            }
+            Game next = position.copy();
+            next.play(move);
+            if (!next.isOver()) {
+                int reply = ponderer.chooseMove(next);
+                /* A search cut short may have missed the best reply. */
+                if (!stopped) {
+                    replies.set(move, reply);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the reply to the last move of this game, if it's the move the opponent made after the pondering
+     * started and the reply was found. Otherwise, returns -1.
+     */
+    int replyTo(Game game) {
+        if (game != this.game || game.moveCount() != moveCount + 1) {
+            return -1;
+        }
+        return replies.get(game.moveAt(moveCount));
+    }
+
+    /**
+     * Stop trying more moves, and cut the search of the move being tried short.
+     */
+    void stop() {
+        stopped = true;
+        ponderer.setStopped(true);
+    }
+
+    /**
+     * Returns the empty cells of this table in the order the player to move would most likely play them.
+     */
+    private static int[] likelyMoves(Grid grid, char player) {
+        int[] moves = new int[Math.min(MAX_MOVES, grid.emptyCount())];
+        int count = 0;
+        count = addMove(moves, count, grid.crucialCell(player));
+        count = addMove(moves, count, grid.crucialCell(Board.opponent(player)));
+        for (int index = 0; index < grid.cellCount(); index++) {
+            if (grid.isCellEmpty(index) && hasNeighbour(grid, index)) {
+                count = addMove(moves, count, index);
+            }
+        }
+        for (int index = 0; index < grid.cellCount(); index++) {
+            if (grid.isCellEmpty(index)) {
+                count = addMove(moves, count, index);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Add this cell to the moves, unless it's -1, there's no more room, or it's there already.
+     *
+     * @return the new number of moves.
+     */
+    private static int addMove(int[] moves, int count, int index) {
+        if (index == -1 || count == moves.length) {
+            return count;
+        }
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == index) {
+                return count;
+            }
+        }
+        moves[count] = index;
+        return count + 1;
+    }
+
+    /**
+     * Returns true if there's a taken cell next to this cell.
+     */
+    private static boolean hasNeighbour(Grid grid, int index) {
+        int size = grid.size();
+        int row = index / size;
+        int column = index % size;
+        for (int r = Math.max(0, row - 1); r <= Math.min(size - 1, row + 1); r++) {
+            for (int c = Math.max(0, column - 1); c <= Math.min(size - 1, column + 1); c++) {
+                if (!grid.isCellEmpty(r * size + c)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,91 @@
+package tictactoe;
+
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates 3x3 positions in bulk: the best move and the value of every board of a batch, for analysis jobs that
+ * read millions of positions out of live games.
+ * <p>
+ * The answers are read from the solved table (see SolvedTable), so they're exactly the ones of the minimax search
+ * of the hard AI (see HardStrategy): the value is the score of the board for the player to move, and the best move
+ * is the lowest index among the moves with that score.
+ * <p>
+ * A batch is a stream of boards, evaluated in parallel as it's read, and the results come out as a stream too,
+ * in the same order, so a batch never has to fit in memory. Each result is packed into an int with the board,
+ * read with board(), bestMove() and score():
+ * <pre>
+ * evaluator.evaluate(boards).forEachOrdered(evaluation -> {
+ *     int move = PositionEvaluator.bestMove(evaluation);
+ * });
+ * </pre>
+ * An evaluator can be used by any number of threads at once.
+ */
+final class PositionEvaluator {
+
+    /* The best move of a board where the game is over. */
+    static final int NO_MOVE = -1;
+
+    /* Every bitboard, whether it's legal or not. */
+    private static final int BOARDS = 1 << 2 * Board.CELLS;
+
+    /* An evaluation: the board in the lowest 18 bits, the best move (0xF for NO_MOVE) in the next 4 bits,
+     * and the score in the highest 8 bits. */
+    private static final int MOVE_SHIFT = 2 * Board.CELLS;
+    private static final int SCORE_SHIFT = 24;
+
+    /**
+     * Evaluate these boards in parallel, in order. The boards are read and evaluated lazily, as the results
+     * are consumed.
+     *
+     * @throws IllegalArgumentException when the results are consumed, if a board isn't a legal position.
+     */
+    IntStream evaluate(IntStream boards) {
+        return boards.parallel().map(this::evaluate);
+    }
+
+    /**
+     * Evaluate these boards in parallel, in order.
+     *
+     * @throws IllegalArgumentException when the results are consumed, if a board isn't a legal position.
+     */
+    IntStream evaluate(int[] boards) {
+        return evaluate(IntStream.of(boards));
+    }
+
+    /**
+     * Returns the evaluation of this board, read with board(), bestMove() and score().
+     *
+     * @throws IllegalArgumentException if the board isn't a legal position (see Board.isLegal()).
+     */
+    int evaluate(int board) {
+        if (!Board.isLegal(board)) {
+            throw new IllegalArgumentException("Not a legal position: " + board);
+        }
+
+        int move = SolvedTable.bestMove(board);
+        return SolvedTable.score(board) << SCORE_SHIFT | (move == NO_MOVE ? 0xF : move) << MOVE_SHIFT | board;
+    }
+
+    /**
+     * Returns the board of this evaluation.
+     */
+    static int board(int evaluation) {
+        return evaluation & (BOARDS - 1);
+    }
+
+    /**
+     * Returns the index of the best cell to play for the player to move, or NO_MOVE if the game is over.
+     */
+    static int bestMove(int evaluation) {
+        int move = evaluation >>> MOVE_SHIFT & 0xF;
+        return move == 0xF ? NO_MOVE : move;
+    }
+
+    /**
+     * Returns the value of the board for the player to move: positive for a win, negative for a lose and 0 for
+     * a draw. Faster wins and slower loses score higher (see ComputerPlayer.winScore()).
+     */
+    static int score(int evaluation) {
+        return evaluation >> SCORE_SHIFT;
+    }
+}
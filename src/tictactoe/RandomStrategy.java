@@ -0,0 +1,22 @@
+package tictactoe;
+
+import java.util.SplittableRandom;
+
+/**
+ * The easy level: always makes random moves regardless of the state of the game.
+ */
+final class RandomStrategy implements MoveStrategy {
+
+    /* The random numbers, drawn from one generator for all the moves, replaced when seeded. */
+    private SplittableRandom random = new SplittableRandom();
+
+    @Override
+    public int chooseMove(Grid grid, char player) {
+        return ComputerPlayer.randomEmptyCell(grid, random);
+    }
+
+    @Override
+    public void seed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+}
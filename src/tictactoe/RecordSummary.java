@@ -0,0 +1,106 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Reads a file of game records (see GameRecordWriter) and prints, for every pairing of players on every table,
+ * how the games ended and how long they were. Every game is replayed on the way, so a record whose moves are
+ * illegal or don't lead to its result is reported.
+ */
+final class RecordSummary {
+
+    /* The counters of a pairing. */
+    private static final int GAMES = 0;
+    private static final int X_WINS = 1;
+    private static final int O_WINS = 2;
+    private static final int DRAWS = 3;
+    private static final int MOVES = 4;
+
+    private final Path path;
+
+    /* The players a record can name (see GameRecordWriter.PLAYER_TYPES). */
+    private static final int PLAYERS = GameRecordWriter.PLAYER_TYPES.length;
+
+    /* The counters by pairing, indexed by its table size, K and player codes (see index()), or null for the
+     * pairings not played. In index order, the pairings are sorted by table then players. */
+    private final long[][] pairings = new long[(Grid.MAX_SIZE + 1) * (Grid.MAX_SIZE + 1) * PLAYERS * PLAYERS][];
+
+    RecordSummary(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Read all the records and print the summary.
+     *
+     * @throws IOException if the file can't be read or holds a bad record.
+     */
+    void run() throws IOException {
+        long start = System.nanoTime();
+        long games = 0;
+        Game game = null;
+        try (GameRecordReader reader = new GameRecordReader(path)) {
+            while (reader.next()) {
+                if (game == null || game.grid().size() != reader.size() || game.grid().k() != reader.k()) {
+                    game = new Game(reader.size(), reader.k());
+                }
+                reader.replay(game);
+                count(reader);
+                games++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (int pairing = 0; pairing < pairings.length; pairing++) {
+            long[] counters = pairings[pairing];
+            if (counters == null) {
+                continue;
+            }
+            System.out.printf("%s: %d games, X wins %.2f%%, O wins %.2f%%, draws %.2f%%, %.2f moves per game%n",
+                    describe(pairing), counters[GAMES], 100.0 * counters[X_WINS] / counters[GAMES],
+                    100.0 * counters[O_WINS] / counters[GAMES], 100.0 * counters[DRAWS] / counters[GAMES],
+                    (double) counters[MOVES] / counters[GAMES]);
+        }
+        System.out.printf("%d games read and replayed in %.2f s.%n", games, seconds);
+    }
+
+    private void count(GameRecordReader reader) {
+        int pairing = index(reader.size(), reader.k(), reader.playerXCode(), reader.playerOCode());
+        long[] counters = pairings[pairing];
+        if (counters == null) {
+            counters = new long[MOVES + 1];
+            pairings[pairing] = counters;
+        }
+        counters[GAMES]++;
+        counters[MOVES] += reader.moveCount();
+        switch (reader.result()) {
+            case X_WINS:
+                counters[X_WINS]++;
+                break;
+            case O_WINS:
+                counters[O_WINS]++;
+                break;
+            default:
+                counters[DRAWS]++;
+                break;
+        }
+    }
+
+    /**
+     * Returns the index of a pairing in pairings, which sorts by table size, then K, then players.
+     */
+    private static int index(int size, int k, int playerX, int playerO) {
+        return ((size * (Grid.MAX_SIZE + 1) + k) * PLAYERS + playerX) * PLAYERS + playerO;
+    }
+
+    /**
+     * Describe the pairing at this index of pairings (see index()), for the summary.
+     */
+    private static String describe(int pairing) {
+        String playerO = GameRecordWriter.PLAYER_TYPES[pairing % PLAYERS];
+        String playerX = GameRecordWriter.PLAYER_TYPES[pairing / PLAYERS % PLAYERS];
+        int k = pairing / (PLAYERS * PLAYERS) % (Grid.MAX_SIZE + 1);
+        int size = pairing / (PLAYERS * PLAYERS * (Grid.MAX_SIZE + 1));
+        return size + "x" + size + " K " + k + ", " + playerX + " (X) against " + playerO + " (O)";
+    }
+}
@@ -0,0 +1,27 @@
+package tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Where the frames drawn by a Renderer go. A frame is handed over as the bytes of its text, all at once, so a
+ * target writes it with a single call to its stream. The targets are created by name (see RenderTargets).
+ * <p>
+ * A target is used by one game at a time, from one thread.
+ */
+interface RenderTarget extends Closeable {
+
+    /**
+     * Write one frame.
+     *
+     * @param frame  the buffer holding the frame, which is reused for the next frames.
+     * @param length the number of bytes of the frame, from the start of the buffer.
+     */
+    void write(byte[] frame, int length) throws IOException;
+
+    /**
+     * Write out what's buffered, then release the stream, unless it's the console.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,115 @@
+package tictactoe;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * The render targets, by name:
+ * - console: the standard output, flushed after every frame,
+ * - none: nowhere, for runs that don't need to see the tables,
+ * - file:&lt;path&gt;: a file, replaced if it exists, buffered and only flushed when closed,
+ * - socket:&lt;host&gt;:&lt;port&gt;: a TCP connection opened to a viewer, flushed after every frame.
+ */
+final class RenderTargets {
+
+    private RenderTargets() {
+    }
+
+    /**
+     * Open the target with this name.
+     *
+     * @throws IllegalArgumentException if there's no target with this name.
+     * @throws IOException              if the file or the connection can't be opened.
+     */
+    static RenderTarget open(String name) throws IOException {
+        if (name.equals("console")) {
+            return console();
+        }
+        if (name.equals("none")) {
+            return none();
+        }
+        if (name.startsWith("file:")) {
+            return new Stream(new BufferedOutputStream(Files.newOutputStream(Paths.get(name.substring(5)))), false);
+        }
+        if (name.startsWith("socket:")) {
+            int colon = name.lastIndexOf(':');
+            try {
+                Socket socket = new Socket(name.substring(7, colon), Integer.parseInt(name.substring(colon + 1)));
+                return new Stream(new BufferedOutputStream(socket.getOutputStream()), true);
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Bad render target " + name + ", expected socket:<host>:<port>");
+            }
+        }
+        throw new IllegalArgumentException("Unknown render target " + name);
+    }
+
+    static RenderTarget console() {
+        return new Console();
+    }
+
+    static RenderTarget none() {
+        return new None();
+    }
+
+    /**
+     * The standard output. It's shared with the rest of the game, so it's flushed after every frame and never
+     * closed.
+     */
+    private static final class Console implements RenderTarget {
+
+        @Override
+        public void write(byte[] frame, int length) {
+            System.out.write(frame, 0, length);
+            System.out.flush();
+        }
+
+        @Override
+        public void close() {
+            System.out.flush();
+        }
+    }
+
+    private static final class None implements RenderTarget {
+
+        @Override
+        public void write(byte[] frame, int length) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * A buffered stream of its own, to a file or a socket, closed with the target.
+     */
+    private static final class Stream implements RenderTarget {
+
+        private final OutputStream out;
+
+        /* Whether every frame is sent at once, for a viewer watching live. */
+        private final boolean flushEveryFrame;
+
+        Stream(OutputStream out, boolean flushEveryFrame) {
+            this.out = out;
+            this.flushEveryFrame = flushEveryFrame;
+        }
+
+        @Override
+        public void write(byte[] frame, int length) throws IOException {
+            out.write(frame, 0, length);
+            if (flushEveryFrame) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
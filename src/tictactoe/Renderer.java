@@ -0,0 +1,169 @@
+package tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Draws the tables of a game, one frame per move, and writes each frame to its target (see RenderTargets) at once.
+ * A frame is drawn into a buffer of bytes kept for all the frames, so drawing allocates nothing, and the target gets
+ * the whole frame in one write instead of a print per cell.
+ * <p>
+ * A long run can skip frames: run with -Dtictactoe.renderEvery=<n> to draw only every n-th frame, or 0 to draw only
+ * the last frame of each game. The last frame is always drawn. Pick the target with -Dtictactoe.render=<target>,
+ * console by default. Only the tables are drawn here, the messages of the game stay on the console.
+ */
+final class Renderer implements Closeable {
+
+    /* The target and the frames drawn, from the system properties. */
+    private static final String TARGET = System.getProperty("tictactoe.render", "console");
+    private static final int RENDER_EVERY = Integer.getInteger("tictactoe.renderEvery", 1);
+
+    private RenderTarget target;
+
+    /* Draw every this many frames, or only the last frame if 0. */
+    private final int every;
+
+    /* The frame being drawn, in ASCII, and the number of frames asked for so far. */
+    private byte[] frame = new byte[256];
+    private int length;
+    private long frames;
+
+    Renderer(RenderTarget target, int every) {
+        this.target = target;
+        this.every = every;
+    }
+
+    /**
+     * Create the renderer configured by the system properties. If its target can't be opened, the tables are
+     * printed to the console instead.
+     */
+    static Renderer fromProperties() {
+        RenderTarget target;
+        try {
+            target = RenderTargets.open(TARGET);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Can't render to " + TARGET + ": " + e.getMessage() + ". Printing the tables.");
+            target = RenderTargets.console();
+        }
+        return new Renderer(target, Math.max(RENDER_EVERY, 0));
+    }
+
+    /**
+     * Draw this table, unless the frame is skipped.
+     *
+     * @param last whether it's the last frame of the game, which is never skipped.
+     */
+    void table(Grid grid, boolean last) {
+        if (skip(last)) {
+            return;
+        }
+
+        int size = grid.size();
+        length = 0;
+        appendRepeated('-', 2 * size + 3).append('\n');
+        for (int row = 0; row < size; row++) {
+            append('|').append(' ');
+            for (int column = 0; column < size; column++) {
+                int index = row * size + column;
+                append(grid.isCellEmpty(index) ? '_' : grid.symbolAt(index)).append(' ');
+            }
+            append('|').append('\n');
+        }
+        appendRepeated('-', 2 * size + 3).append('\n');
+        write();
+    }
+
+    /**
+     * Draw this table of ultimate Tic-Tac-Toe, the small boards apart, and where the next move must go, unless
+     * the frame is skipped.
+     *
+     * @param last whether it's the last frame of the game, which is never skipped.
+     */
+    void ultimateTable(UltimateGame game, boolean last) {
+        if (skip(last)) {
+            return;
+        }
+
+        length = 0;
+        appendRepeated('-', 25).append('\n');
+        for (int row = 0; row < 9; row++) {
+            if (row == 3 || row == 6) {
+                append("|-------+-------+-------|\n");
+            }
+            for (int column = 0; column < 9; column++) {
+                if (column % 3 == 0) {
+                    append('|').append(' ');
+                }
+                char symbol = game.symbolAt(row * 9 + column);
+                append(symbol == Grid.EMPTY ? '_' : symbol).append(' ');
+            }
+            append('|').append('\n');
+        }
+        appendRepeated('-', 25).append('\n');
+        if (!game.isOver()) {
+            append("Next move in ");
+            if (game.forcedBoard() == UltimateGame.ANY_BOARD) {
+                append("any open board");
+            } else {
+                append("board ").append((char) ('0' + game.forcedBoard()));
+            }
+            append('.').append('\n');
+        }
+        write();
+    }
+
+    /**
+     * Count this frame, and returns whether it's skipped.
+     */
+    private boolean skip(boolean last) {
+        long number = frames++;
+        return !last && (every == 0 || number % every != 0);
+    }
+
+    /**
+     * Write the frame to the target. If it fails, the game goes on without drawing the tables.
+     */
+    private void write() {
+        try {
+            target.write(frame, length);
+        } catch (IOException e) {
+            System.out.println("Stopped rendering the tables: " + e.getMessage());
+            target = RenderTargets.none();
+        }
+    }
+
+    /**
+     * Write out what the target buffered, and release it.
+     */
+    @Override
+    public void close() {
+        try {
+            target.close();
+        } catch (IOException e) {
+            System.out.println("Can't finish rendering the tables: " + e.getMessage());
+        }
+    }
+
+    private Renderer append(char c) {
+        if (length == frame.length) {
+            frame = Arrays.copyOf(frame, 2 * frame.length);
+        }
+        frame[length++] = (byte) c;
+        return this;
+    }
+
+    private Renderer append(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            append(text.charAt(i));
+        }
+        return this;
+    }
+
+    private Renderer appendRepeated(char c, int count) {
+        for (int i = 0; i < count; i++) {
+            append(c);
+        }
+        return this;
+    }
+}
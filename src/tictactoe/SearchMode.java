@@ -0,0 +1,41 @@
+package tictactoe;
+
+/**
+ * How the hard AI picks its moves.
+ */
+enum SearchMode {
+
+    /* Look the move up in the solved table (see SolvedTable). */
+    SOLVED_TABLE("table"),
+
+    /* Search every move till the end of the game. */
+    MINIMAX("minimax"),
+
+    /* Search the moves in a promising order and skip the branches that can't change the result. */
+    ALPHA_BETA("alphabeta");
+
+    private final String name;
+
+    SearchMode(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the mode with this name: table, minimax or alphabeta.
+     *
+     * @throws IllegalArgumentException if there's no mode with this name.
+     */
+    static SearchMode of(String name) {
+        for (SearchMode mode : values()) {
+            if (mode.name.equals(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown search mode " + name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,230 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many games between two AI players, without printing the tables nor waiting before the moves,
+ * and prints how the games ended, how fast they were played and how long the moves took.
+ * <p>
+ * The games are split into batches played at once on a fork-join pool with a thread per core. Every batch
+ * has its own players, games and counters, which are only added together when all the batches are done,
+ * so the threads share nothing while playing.
+ * <p>
+ * Run with -Dtictactoe.recordFile=<file> to append the record of every game to this file (see GameRecordWriter).
+ */
+final class Simulation {
+
+    /* Number of threads playing the games, one per core by default.
+     * Run with -Dtictactoe.threads=<threads> to change it. */
+    static final int THREADS = Integer.getInteger("tictactoe.threads", Runtime.getRuntime().availableProcessors());
+
+    /* Batches per thread, so the threads that finish early pick up the remaining batches. */
+    private static final int BATCHES_PER_THREAD = 4;
+
+    /* The file the games are recorded to, if any. */
+    private static final String RECORD_FILE = System.getProperty("tictactoe.recordFile");
+
+    private final String playerX;
+    private final String playerO;
+    private final long games;
+    private final int size;
+    private final int k;
+
+    Simulation(String playerX, String playerO, long games, int size, int k) {
+        this.playerX = playerX;
+        this.playerO = playerO;
+        this.games = games;
+        this.size = size;
+        this.k = k;
+    }
+
+    /**
+     * Create a simulation from the parameters of the command: simulate <playerX> <playerO> <games> [size] [k]
+     *
+     * @return the simulation, or null if the parameters are not valid.
+     */
+    static Simulation parse(String[] params) {
+        if (params.length < 4 || params.length > 6 || !isComputerPlayer(params[1]) || !isComputerPlayer(params[2])) {
+            return null;
+        }
+
+        try {
+            long games = Long.parseLong(params[3]);
+            int size = params.length > 4 ? Integer.parseInt(params[4]) : 3;
+            int k = params.length > 5 ? Integer.parseInt(params[5]) : Math.min(size, 5);
+            /* Fail early on a bad size or K. */
+            new Grid(size, k);
+            return games > 0 ? new Simulation(params[1], params[2], games, size, k) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static boolean isComputerPlayer(String playerType) {
+        return MoveStrategies.exists(playerType);
+    }
+
+    /**
+     * Play all the games and print the results.
+     */
+    void run() {
+        System.out.println("Simulating " + games + " games of " + playerX + " (X) against " + playerO + " (O) on a " +
+                size + "x" + size + " table, " + k + " in a row, on " + THREADS + " threads...");
+        long start = System.nanoTime();
+
+        Results results;
+        if (RECORD_FILE == null) {
+            results = play(null);
+        } else if (!GameRecordWriter.isRecorded(playerX) || !GameRecordWriter.isRecorded(playerO)) {
+            System.out.println("Can't record the games of " + playerX + " against " + playerO + ".");
+            return;
+        } else {
+            Path recordFile = Paths.get(RECORD_FILE);
+            try (GameRecordWriter records = new GameRecordWriter(recordFile)) {
+                results = play(records);
+            } catch (IOException e) {
+                System.out.println("Can't record the games to " + recordFile + ": " + e.getMessage());
+                return;
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("X wins: %d (%.2f%%)%n", results.xWins, 100.0 * results.xWins / games);
+        System.out.printf("O wins: %d (%.2f%%)%n", results.oWins, 100.0 * results.oWins / games);
+        System.out.printf("Draws:  %d (%.2f%%)%n", results.draws, 100.0 * results.draws / games);
+        System.out.printf("%d games in %.2f s: %.0f games per second.%n", games, seconds, games / seconds);
+        System.out.println(results.moveLatency.count() + " moves: " + results.moveLatency.summary());
+        if (Metrics.ENABLED) {
+            System.err.print(Metrics.dump());
+        }
+    }
+
+    /**
+     * Play all the games in batches on all the threads and add their results together.
+     *
+     * @param records where the games are recorded, or null.
+     */
+    Results play(GameRecordWriter records) {
+        int batches = (int) Math.min(games, (long) THREADS * BATCHES_PER_THREAD);
+        List<Callable<Results>> tasks = new ArrayList<>(batches);
+        for (int batch = 0; batch < batches; batch++) {
+            /* Spread the remainder over the first batches. */
+            long batchGames = games / batches + (batch < games % batches ? 1 : 0);
+            tasks.add(() -> playBatch(batchGames, records));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(THREADS);
+        try {
+            Results results = new Results();
+            for (Future<Results> batchResults : pool.invokeAll(tasks)) {
+                results.add(batchResults.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw (UncheckedIOException) e.getCause();
+            }
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Play a batch of games on the current thread, with players and a record buffer of its own.
+     */
+    private Results playBatch(long batchGames, GameRecordWriter records) {
+        Player player1 = new ComputerPlayer(playerX, 'X', true);
+        Player player2 = new ComputerPlayer(playerO, 'O', true);
+        Results results = new Results();
+        GameRecordWriter.Buffer recordBuffer = records == null ? null : records.newBuffer();
+
+        /* One game is reset for all the games of the batch, so playing allocates nothing. */
+        Game currentGame = new Game(size, k);
+        for (long game = 0; game < batchGames; game++) {
+            currentGame.reset();
+            switch (playGame(currentGame, player1, player2, results.moveLatency)) {
+                case X_WINS:
+                    results.xWins++;
+                    break;
+                case O_WINS:
+                    results.oWins++;
+                    break;
+                default:
+                    results.draws++;
+                    break;
+            }
+            if (recordBuffer != null) {
+                recordGame(recordBuffer, currentGame);
+            }
+        }
+        if (recordBuffer != null) {
+            try {
+                recordBuffer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return results;
+    }
+
+    private void recordGame(GameRecordWriter.Buffer recordBuffer, Game game) {
+        try {
+            recordBuffer.add(game, playerX, playerO);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Play a game till the end, recording how long each move took.
+     *
+     * @return how the game ended.
+     */
+    static GameState playGame(Game game, Player player1, Player player2, LatencyHistogram moveLatency) {
+        Player currentPlayer = player1;
+        while (true) {
+            long moveStart = System.nanoTime();
+            currentPlayer.makeMove(game);
+            moveLatency.record(System.nanoTime() - moveStart);
+
+            GameState state = game.state();
+            if (state != GameState.NOT_FINISHED) {
+                if (Metrics.ENABLED) {
+                    Metrics.gameOver(state);
+                }
+                return state;
+            }
+            currentPlayer = currentPlayer == player1 ? player2 : player1;
+        }
+    }
+
+    /**
+     * How a number of games ended and how long their moves took.
+     */
+    static final class Results {
+        long xWins;
+        long oWins;
+        long draws;
+        final LatencyHistogram moveLatency = new LatencyHistogram();
+
+        void add(Results other) {
+            xWins += other.xWins;
+            oWins += other.oWins;
+            draws += other.draws;
+            moveLatency.add(other.moveLatency);
+        }
+    }
+}
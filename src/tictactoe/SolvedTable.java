@@ -0,0 +1,195 @@
+package tictactoe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The solved game: every position reachable from the empty board mapped to its best move and its value.
+ * The table is indexed directly by the bitboard (see Board), so a lookup is a single read.
+ * <p>
+ * The table is saved to a file (see write()), which is memory-mapped when the table is first used, so a new JVM
+ * answers its first lookup without solving anything, and only reads the pages of the file it looks up.
+ * Without the file, the table is built in memory by a memoized minimax over the fewer than 6,000 legal positions.
+ * Run with -Dtictactoe.solvedTable=<file> to use another file than tictactoe-solved.bin.
+ * <p>
+ * The file is a header (MAGIC, VERSION, the number of positions and a padding int, all big-endian) followed by
+ * two bytes per bitboard: the best move and the value.
+ */
+final class SolvedTable {
+
+    static final Path DEFAULT_FILE = Paths.get(System.getProperty("tictactoe.solvedTable", "tictactoe-solved.bin"));
+
+    private static final int MAGIC = 0x54545453; // "TTTS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    /* Marks the positions that were not reached (yet). */
+    private static final byte UNSOLVED = -2;
+
+    /* Marks terminal positions, where there's no move to make. */
+    private static final byte NO_MOVE = -1;
+
+    /* Every bitboard, whether it's legal or not. */
+    private static final int BOARDS = 1 << 2 * Board.CELLS;
+
+    /* The best move index and the value of every position, two bytes per bitboard. The value is for the player
+     * to move: positive for a win, negative for a lose and 0 for a draw. Faster wins and slower loses score higher
+     * (see ComputerPlayer.winScore()). */
+    private static final int ENTRY_BYTES = 2;
+
+    private SolvedTable() {
+    }
+
+    /**
+     * The table, loaded when first used.
+     */
+    private static final class Entries {
+
+        static final ByteBuffer ENTRIES;
+        static final int POSITIONS;
+
+        static {
+            ByteBuffer entries = load(DEFAULT_FILE);
+            if (entries == null) {
+                entries = ByteBuffer.wrap(solveAll());
+            }
+            ENTRIES = entries;
+            POSITIONS = entries.getInt(8);
+        }
+    }
+
+    /**
+     * Returns the index of the best move for the player to move on this board, or -1 if the game is over.
+     * Among equally good moves, the lowest index is chosen, just like the minimax search does.
+     */
+    static int bestMove(int board) {
+        return Entries.ENTRIES.get(HEADER_BYTES + ENTRY_BYTES * board);
+    }
+
+    /**
+     * Returns the value of this board for the player to move: positive for a win, negative for a lose
+     * and 0 for a draw.
+     */
+    static int score(int board) {
+        return Entries.ENTRIES.get(HEADER_BYTES + ENTRY_BYTES * board + 1);
+    }
+
+    /**
+     * Returns the number of legal positions stored in the table.
+     */
+    static int positions() {
+        return Entries.POSITIONS;
+    }
+
+    /**
+     * Solve the game from scratch and save the table to this file, replacing it at once if it exists.
+     *
+     * @return the number of legal positions saved.
+     */
+    static int write(Path path) throws IOException {
+        byte[] entries = solveAll();
+        Path absolutePath = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, entries);
+            Files.move(temporary, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return ByteBuffer.wrap(entries).getInt(8);
+    }
+
+    /**
+     * Memory-map the table saved in this file.
+     *
+     * @return the table, or null if the file doesn't exist or isn't a table of this version.
+     */
+    private static ByteBuffer load(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + (long) ENTRY_BYTES * BOARDS) {
+                System.out.println("Ignoring " + path + ": it's not a solved table.");
+                return null;
+            }
+
+            /* The mapping stays valid after the channel is closed. */
+            ByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (entries.getInt(0) != MAGIC || entries.getInt(4) != VERSION) {
+                System.out.println("Ignoring " + path + ": it's not a solved table of version " + VERSION + ".");
+                return null;
+            }
+            return entries;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.out.println("Ignoring " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Solve every position reachable from the empty board.
+     *
+     * @return the table, header included, as saved in the file.
+     */
+    private static byte[] solveAll() {
+        byte[] moves = new byte[BOARDS];
+        byte[] scores = new byte[BOARDS];
+        Arrays.fill(moves, UNSOLVED);
+        solve(Board.EMPTY, moves, scores);
+
+        ByteBuffer entries = ByteBuffer.allocate(HEADER_BYTES + ENTRY_BYTES * BOARDS);
+        entries.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0);
+        int positions = 0;
+        for (int board = 0; board < BOARDS; board++) {
+            if (moves[board] != UNSOLVED) {
+                positions++;
+            }
+            entries.put(moves[board]).put(scores[board]);
+        }
+        entries.putInt(8, positions);
+        return entries.array();
+    }
+
+    /**
+     * Solve this board and every board reachable from it (negamax: the value of a board is the negated
+     * value of the best board the opponent can reach).
+     *
+     * @return the value of this board for the player to move.
+     */
+    private static int solve(int board, byte[] moves, byte[] scores) {
+        if (moves[board] != UNSOLVED) {
+            return scores[board];
+        }
+
+        char player = Board.sideToMove(board);
+        int bestScore;
+        int bestMove = NO_MOVE;
+        if (Board.winning(board, Board.opponent(player))) {
+            bestScore = -ComputerPlayer.winScore(board);
+        } else if (Board.emptyCells(board) == 0) {
+            bestScore = 0;
+        } else {
+            bestScore = Integer.MIN_VALUE;
+            for (int empty = Board.emptyCells(board); empty != 0; empty &= empty - 1) {
+                int index = Integer.numberOfTrailingZeros(empty);
+                int score = -solve(Board.place(board, index, player), moves, scores);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = index;
+                }
+            }
+        }
+
+        moves[board] = (byte) bestMove;
+        scores[board] = (byte) bestScore;
+        return bestScore;
+    }
+}
@@ -0,0 +1,363 @@
+package tictactoe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Plays a round robin between AI players: every pairing plays the same number of games, each player taking X in
+ * every other game. It then prints how every player scored against every other, and their Elo ratings with 95%
+ * confidence intervals.
+ * <p>
+ * The games of every pairing are split into batches, and the batches of all the pairings are played at once on a
+ * fork-join pool, like a Simulation. Every batch has its own players, seeded from the tournament seed in the order
+ * the batches are made, so the same seed plays the same games whatever the threads do.
+ * Run with -Dtictactoe.seed=<seed> to change the seed (1 by default).
+ */
+final class Tournament {
+
+    /* The players of a tournament without a list of players. */
+    private static final String[] DEFAULT_PLAYERS = {"easy", "medium", "hard", "mcts"};
+
+    private static final long SEED = Long.getLong("tictactoe.seed", 1L);
+
+    /* The games of a batch. The batches don't depend on the number of threads, so neither do the games. */
+    private static final long BATCH_GAMES = 500;
+
+    /* Every pairing counts as if it had this many more draws, so a player that won all its games still has
+     * a finite rating. */
+    private static final double PRIOR_DRAWS = 1;
+
+    /* The rating of an average player. */
+    private static final double MEAN_RATING = 1500;
+
+    private final String[] players;
+    private final long gamesPerPairing;
+    private final int size;
+    private final int k;
+
+    /* The wins, draws and losses of every player against every other, from the side of the first player. */
+    private final long[][] wins;
+    private final long[][] draws;
+
+    Tournament(String[] players, long gamesPerPairing, int size, int k) {
+        this.players = players;
+        this.gamesPerPairing = gamesPerPairing;
+        this.size = size;
+        this.k = k;
+        this.wins = new long[players.length][players.length];
+        this.draws = new long[players.length][players.length];
+    }
+
+    /**
+     * Create a tournament from the parameters of the command: tournament &lt;games&gt; [players] [size] [k]
+     * where the players are separated by commas, like easy,hard,mcts.
+     *
+     * @return the tournament, or null if the parameters are not valid.
+     */
+    static Tournament parse(String[] params) {
+        if (params.length < 2 || params.length > 5) {
+            return null;
+        }
+        try {
+            long games = Long.parseLong(params[1]);
+            String[] players = params.length > 2 ? params[2].split(",") : DEFAULT_PLAYERS;
+            int size = params.length > 3 ? Integer.parseInt(params[3]) : 3;
+            int k = params.length > 4 ? Integer.parseInt(params[4]) : Math.min(size, 5);
+            /* Fail early on a bad size or K. */
+            new Grid(size, k);
+            if (games <= 0 || players.length < 2) {
+                return null;
+            }
+            for (int player = 0; player < players.length; player++) {
+                if (!Simulation.isComputerPlayer(players[player])) {
+                    return null;
+                }
+                for (int other = 0; other < player; other++) {
+                    if (players[other].equals(players[player])) {
+                        return null;
+                    }
+                }
+            }
+            return new Tournament(players, games, size, k);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Play all the games and print the results.
+     */
+    void run() {
+        int pairings = players.length * (players.length - 1) / 2;
+        System.out.println("Playing " + gamesPerPairing + " games per pairing between " + String.join(", ", players) +
+                " on a " + size + "x" + size + " table, " + k + " in a row, with seed " + SEED + " on " +
+                Simulation.THREADS + " threads...");
+        long start = System.nanoTime();
+        LatencyHistogram moveLatency = play();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        printScores();
+        printRatings();
+        long games = pairings * gamesPerPairing;
+        System.out.printf("%d games in %.2f s: %.0f games per second.%n", games, seconds, games / seconds);
+        System.out.println(moveLatency.count() + " moves: " + moveLatency.summary());
+    }
+
+    /**
+     * Play the games of all the pairings in batches on all the threads and add their results together.
+     *
+     * @return how long the moves took.
+     */
+    private LatencyHistogram play() {
+        SplittableRandom seeds = new SplittableRandom(SEED);
+        List<Callable<Batch>> tasks = new ArrayList<>();
+        for (int first = 0; first < players.length; first++) {
+            for (int second = first + 1; second < players.length; second++) {
+                for (long firstGame = 0; firstGame < gamesPerPairing; firstGame += BATCH_GAMES) {
+                    long batchGames = Math.min(BATCH_GAMES, gamesPerPairing - firstGame);
+                    tasks.add(new Batch(first, second, firstGame, batchGames, seeds.nextLong()));
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Simulation.THREADS);
+        try {
+            LatencyHistogram moveLatency = new LatencyHistogram();
+            for (Future<Batch> future : pool.invokeAll(tasks)) {
+                Batch batch = future.get();
+                wins[batch.first][batch.second] += batch.firstWins;
+                wins[batch.second][batch.first] += batch.secondWins;
+                draws[batch.first][batch.second] += batch.draws;
+                draws[batch.second][batch.first] += batch.draws;
+                moveLatency.add(batch.moveLatency);
+            }
+            return moveLatency;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tournament interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Print the score of every player (row) against every other (column), a win counting one point and a draw
+     * half a point, then the wins, draws and losses of every pairing.
+     */
+    private void printScores() {
+        StringBuilder header = new StringBuilder(String.format("%-8s", ""));
+        for (String player : players) {
+            header.append(String.format("%9s", player));
+        }
+        System.out.println(header);
+        for (int player = 0; player < players.length; player++) {
+            StringBuilder row = new StringBuilder(String.format("%-8s", players[player]));
+            for (int opponent = 0; opponent < players.length; opponent++) {
+                row.append(player == opponent ? String.format("%9s", "-")
+                        : String.format("%8.1f%%", 100 * score(player, opponent) / gamesPerPairing));
+            }
+            System.out.println(row);
+        }
+
+        for (int first = 0; first < players.length; first++) {
+            for (int second = first + 1; second < players.length; second++) {
+                System.out.printf("%s against %s: %d wins, %d draws, %d losses%n", players[first], players[second],
+                        wins[first][second], draws[first][second], wins[second][first]);
+            }
+        }
+    }
+
+    /**
+     * Print the Elo rating of every player, best first, with its 95% confidence interval.
+     * <p>
+     * The ratings are the ones that make the scores of the tournament the most likely (the Bradley-Terry model,
+     * with a draw worth half a win), found with the minorization-maximization algorithm, and shifted so the mean
+     * rating is MEAN_RATING. The intervals come from the curvature of the likelihood at the ratings found.
+     */
+    private void printRatings() {
+        int n = players.length;
+        double[] strengths = new double[n];
+        Arrays.fill(strengths, 1);
+        for (int iteration = 0; iteration < 10_000; iteration++) {
+            double change = 0;
+            for (int player = 0; player < n; player++) {
+                double score = 0;
+                double denominator = 0;
+                for (int opponent = 0; opponent < n; opponent++) {
+                    if (opponent != player) {
+                        score += score(player, opponent) + PRIOR_DRAWS / 2;
+                        denominator += (gamesPerPairing + PRIOR_DRAWS) / (strengths[player] + strengths[opponent]);
+                    }
+                }
+                double strength = score / denominator;
+                change = Math.max(change, Math.abs(strength - strengths[player]) / strengths[player]);
+                strengths[player] = strength;
+            }
+            if (change < 1e-12) {
+                break;
+            }
+        }
+
+        double[] ratings = new double[n];
+        double meanRating = 0;
+        for (int player = 0; player < n; player++) {
+            ratings[player] = 400 * Math.log10(strengths[player]);
+            meanRating += ratings[player] / n;
+        }
+
+        /* The information matrix of the ratings: the games weighted by how uncertain each of them was. */
+        double scale = Math.log(10) / 400;
+        double[][] information = new double[n][n];
+        for (int player = 0; player < n; player++) {
+            for (int opponent = 0; opponent < n; opponent++) {
+                if (opponent != player) {
+                    double expected = 1 / (1 + Math.pow(10, (ratings[opponent] - ratings[player]) / 400));
+                    double weight = (gamesPerPairing + PRIOR_DRAWS) * expected * (1 - expected) * scale * scale;
+                    information[player][opponent] -= weight;
+                    information[player][player] += weight;
+                }
+            }
+        }
+        double[][] covariance = pseudoInverse(information);
+
+        Integer[] ranking = new Integer[n];
+        for (int player = 0; player < n; player++) {
+            ranking[player] = player;
+        }
+        Arrays.sort(ranking, (a, b) -> Double.compare(ratings[b], ratings[a]));
+        System.out.println("Player      Elo   95% CI   Score");
+        for (int player : ranking) {
+            double score = 0;
+            for (int opponent = 0; opponent < n; opponent++) {
+                if (opponent != player) {
+                    score += score(player, opponent);
+                }
+            }
+            System.out.printf("%-8s  %5.0f  +/- %3.0f   %.1f%%%n", players[player],
+                    ratings[player] - meanRating + MEAN_RATING, 1.96 * Math.sqrt(covariance[player][player]),
+                    100 * score / ((n - 1) * gamesPerPairing));
+        }
+    }
+
+    /**
+     * Returns the points this player scored against this opponent: one per win and a half per draw.
+     */
+    private double score(int player, int opponent) {
+        return wins[player][opponent] + draws[player][opponent] / 2.0;
+    }
+
+    /**
+     * Returns the pseudo-inverse of this information matrix, whose rows add up to 0: the ratings can all be
+     * shifted by the same amount, so only their differences are known. Adding 1/n to every entry makes it
+     * invertible without changing those differences.
+     */
+    private static double[][] pseudoInverse(double[][] matrix) {
+        int n = matrix.length;
+        double[][] a = new double[n][2 * n];
+        for (int row = 0; row < n; row++) {
+            for (int column = 0; column < n; column++) {
+                a[row][column] = matrix[row][column] + 1.0 / n;
+            }
+            a[row][n + row] = 1;
+        }
+
+        /* Gauss-Jordan elimination with partial pivoting. */
+        for (int column = 0; column < n; column++) {
+            int pivot = column;
+            for (int row = column + 1; row < n; row++) {
+                if (Math.abs(a[row][column]) > Math.abs(a[pivot][column])) {
+                    pivot = row;
+                }
+            }
+            double[] swap = a[column];
+            a[column] = a[pivot];
+            a[pivot] = swap;
+
+            double divisor = a[column][column];
+            for (int j = 0; j < 2 * n; j++) {
+                a[column][j] /= divisor;
+            }
+            for (int row = 0; row < n; row++) {
+                if (row != column && a[row][column] != 0) {
+                    double factor = a[row][column];
+                    for (int j = 0; j < 2 * n; j++) {
+                        a[row][j] -= factor * a[column][j];
+                    }
+                }
+            }
+        }
+
+        double[][] inverse = new double[n][n];
+        for (int row = 0; row < n; row++) {
+            for (int column = 0; column < n; column++) {
+                inverse[row][column] = a[row][n + column] - 1.0 / n;
+            }
+        }
+        return inverse;
+    }
+
+    /**
+     * A batch of the games of one pairing, played on one thread with players of its own, and its results.
+     * The first player plays X in the even games of the pairing and O in the odd ones.
+     */
+    private final class Batch implements Callable<Batch> {
+
+        final int first;
+        final int second;
+        private final long firstGame;
+        private final long games;
+        private final long seed;
+
+        long firstWins;
+        long secondWins;
+        long draws;
+        final LatencyHistogram moveLatency = new LatencyHistogram();
+
+        Batch(int first, int second, long firstGame, long games, long seed) {
+            this.first = first;
+            this.second = second;
+            this.firstGame = firstGame;
+            this.games = games;
+            this.seed = seed;
+        }
+
+        @Override
+        public Batch call() {
+            SplittableRandom seeds = new SplittableRandom(seed);
+            ComputerPlayer firstX = player(players[first], 'X', seeds);
+            ComputerPlayer firstO = player(players[first], 'O', seeds);
+            ComputerPlayer secondX = player(players[second], 'X', seeds);
+            ComputerPlayer secondO = player(players[second], 'O', seeds);
+
+            Game game = new Game(size, k);
+            for (long index = firstGame; index < firstGame + games; index++) {
+                game.reset();
+                boolean firstIsX = index % 2 == 0;
+                GameState result = firstIsX ? Simulation.playGame(game, firstX, secondO, moveLatency)
+                        : Simulation.playGame(game, secondX, firstO, moveLatency);
+                if (result == GameState.DRAW) {
+                    draws++;
+                } else if ((result == GameState.X_WINS) == firstIsX) {
+                    firstWins++;
+                } else {
+                    secondWins++;
+                }
+            }
+            return this;
+        }
+
+        private ComputerPlayer player(String difficulty, char symbol, SplittableRandom seeds) {
+            ComputerPlayer player = new ComputerPlayer(difficulty, symbol, true);
+            player.seed(seeds.nextLong());
+            return player;
+        }
+    }
+}
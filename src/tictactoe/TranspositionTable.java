@@ -0,0 +1,125 @@
+package tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of search results keyed on the canonical form of the board (see Board.canonical()),
+ * so the eight rotations and reflections of one position share a single entry.
+ * <p>
+ * The cache is a fixed-size array of slots and every board hashes to exactly one slot. When two boards
+ * hash to the same slot, the newest result replaces the older one, so the cache never grows past its capacity.
+ * Each entry is packed into one int: a valid bit, the bound of the score, the 18-bit canonical board
+ * and the 8-bit score.
+ */
+final class TranspositionTable {
+
+    /* Default number of slots, enough to hold every canonical position of a 3x3 game. */
+    static final int DEFAULT_CAPACITY = 1 << 12;
+
+    /* What the cached score tells about the real score of the board. An alpha-beta search that cuts off
+     * a branch only knows that the real score is at least (lower bound) or at most (upper bound) its result. */
+    static final int EXACT = 0;
+    static final int LOWER_BOUND = 1;
+    static final int UPPER_BOUND = 2;
+
+    private static final int VALID = 1 << 30;
+    private static final int BOUND_SHIFT = 26;
+    private static final int KEY_SHIFT = 8;
+    private static final int KEY_MASK = (1 << 2 * Board.CELLS) - 1;
+    private static final int SCORE_MASK = 0xFF;
+
+    /* Returned by probe() when the board is not cached. */
+    static final int MISS = 0;
+
+    private final int[] slots;
+    private final int hashShift;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Create a cache.
+     *
+     * @param capacity the number of slots, rounded up to a power of two.
+     */
+    TranspositionTable(int capacity) {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, 2) - 1);
+        this.slots = new int[1 << bits];
+        this.hashShift = 32 - bits;
+    }
+
+    TranspositionTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Returns the cached entry of this board, or MISS if it's not cached.
+     * The entry is read with score() and bound().
+     */
+    int probe(int board) {
+        int key = Board.canonical(board);
+        int entry = slots[slot(key)];
+        if ((entry & VALID) != 0 && (entry >>> KEY_SHIFT & KEY_MASK) == key) {
+            hits++;
+            return entry;
+        }
+        misses++;
+        return MISS;
+    }
+
+    /**
+     * Returns the score of a cached entry, for the player to move on the board.
+     */
+    static int score(int entry) {
+        return (byte) entry;
+    }
+
+    /**
+     * Returns the bound of a cached entry: EXACT, LOWER_BOUND or UPPER_BOUND.
+     */
+    static int bound(int entry) {
+        return entry >>> BOUND_SHIFT & 0b11;
+    }
+
+    /**
+     * Cache the score of this board for the player to move, replacing whatever the slot held before.
+     * The score must fit in a byte.
+     */
+    void put(int board, int score, int bound) {
+        int key = Board.canonical(board);
+        slots[slot(key)] = VALID | bound << BOUND_SHIFT | key << KEY_SHIFT | score & SCORE_MASK;
+    }
+
+    /**
+     * Empty the cache and reset its counters.
+     */
+    void clear() {
+        Arrays.fill(slots, MISS);
+        hits = 0;
+        misses = 0;
+    }
+
+    long hits() {
+        return hits;
+    }
+
+    long misses() {
+        return misses;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    private int slot(int key) {
+        /* Fibonacci hashing spreads the neighbouring keys over the whole table. */
+        return (key * 0x9E3779B9) >>> hashShift;
+    }
+
+    @Override
+    public String toString() {
+        long lookups = hits + misses;
+        return "Transposition table: " + hits + " hits, " + misses + " misses (" +
+                (lookups == 0 ? 0 : 100 * hits / lookups) + "% hit rate), " + slots.length + " slots.";
+    }
+}
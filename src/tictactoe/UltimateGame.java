@@ -0,0 +1,255 @@
+package tictactoe;
+
+/**
+ * A game of ultimate Tic-Tac-Toe: nine small 3x3 boards laid out as the cells of a 3x3 meta-board.
+ * Winning a small board (three in a row, as in the classic game) takes the matching cell of the meta-board, and
+ * three small boards in a row win the game. The cell a player picks in a small board sends the opponent to the
+ * small board at the same place of the meta-board. If that board is already won or full, the opponent may play in
+ * any open board instead. When every board is closed and nobody has three boards in a row, the game is a draw.
+ * <p>
+ * The state is the nine small boards and the meta-board, all encoded as Board bitboards (a small board won by X is
+ * an X on the meta-board), with a 9-bit mask of the closed boards (won or full) and the board the next move must go
+ * to. Moves are numbered board * 9 + cell, from 0 to 80, and are taken back in the reverse order, so a search plays
+ * on one game without copying it.
+ * <p>
+ * On screen, the game is a 9x9 table whose cells are numbered row by row, from 0 to 80 (see toIndex()).
+ */
+final class UltimateGame {
+
+    /* Number of moves on the whole table, numbered board * 9 + cell. */
+    static final int MOVES = Board.CELLS * Board.CELLS;
+
+    /* The forced board when the next move may go to any open board. */
+    static final int ANY_BOARD = -1;
+
+    /* The small boards, by their index on the meta-board, and the meta-board of the boards won. */
+    private final int[] boards = new int[Board.CELLS];
+    private int meta = Board.EMPTY;
+
+    /* The 9-bit mask of the boards won or full, where no move can go. */
+    private int closedBoards;
+
+    /* The board the player to move must play in, or ANY_BOARD. */
+    private int forcedBoard = ANY_BOARD;
+
+    /* The symbol of the player to move. X always plays first. */
+    private char turn = 'X';
+
+    /* The moves played so far, in order, and the board each one was forced to, to take them back. */
+    private final int[] moves = new int[MOVES];
+    private final int[] forcedBoards = new int[MOVES];
+    private int moveCount;
+
+    /**
+     * Returns a copy of this game, with the same moves played, that can be played on independently.
+     */
+    UltimateGame copy() {
+        UltimateGame copy = new UltimateGame();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Make this game the same as another one, without allocating anything.
+     */
+    void copyFrom(UltimateGame other) {
+        System.arraycopy(other.boards, 0, boards, 0, Board.CELLS);
+        meta = other.meta;
+        closedBoards = other.closedBoards;
+        forcedBoard = other.forcedBoard;
+        turn = other.turn;
+        System.arraycopy(other.moves, 0, moves, 0, other.moveCount);
+        System.arraycopy(other.forcedBoards, 0, forcedBoards, 0, other.moveCount);
+        moveCount = other.moveCount;
+    }
+
+    /**
+     * Start the game over, with every board emptied.
+     */
+    void reset() {
+        for (int board = 0; board < Board.CELLS; board++) {
+            boards[board] = Board.EMPTY;
+        }
+        meta = Board.EMPTY;
+        closedBoards = 0;
+        forcedBoard = ANY_BOARD;
+        turn = 'X';
+        moveCount = 0;
+    }
+
+    /**
+     * Returns the move on this cell of this small board.
+     */
+    static int move(int board, int cell) {
+        return board * Board.CELLS + cell;
+    }
+
+    static int boardOf(int move) {
+        return move / Board.CELLS;
+    }
+
+    static int cellOf(int move) {
+        return move % Board.CELLS;
+    }
+
+    /**
+     * Returns the index on the 9x9 table, numbered row by row, of this move.
+     */
+    static int toIndex(int move) {
+        int board = boardOf(move);
+        int cell = cellOf(move);
+        return (board / 3 * 3 + cell / 3) * 9 + board % 3 * 3 + cell % 3;
+    }
+
+    /**
+     * Returns the move on the cell with this index on the 9x9 table, numbered row by row.
+     */
+    static int fromIndex(int index) {
+        int row = index / 9;
+        int column = index % 9;
+        return move(row / 3 * 3 + column / 3, row % 3 * 3 + column % 3);
+    }
+
+    /**
+     * Returns the symbol of the player to move.
+     */
+    char turn() {
+        return turn;
+    }
+
+    /**
+     * Returns the small board with this index, as a Board bitboard.
+     */
+    int board(int board) {
+        return boards[board];
+    }
+
+    /**
+     * Returns the meta-board, as a Board bitboard of the small boards won by each player.
+     */
+    int meta() {
+        return meta;
+    }
+
+    /**
+     * Returns the 9-bit mask of the small boards won or full.
+     */
+    int closedBoards() {
+        return closedBoards;
+    }
+
+    /**
+     * Returns the board the player to move must play in, or ANY_BOARD.
+     */
+    int forcedBoard() {
+        return forcedBoard;
+    }
+
+    int moveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns the move with this number, the first move being 0.
+     */
+    int moveAt(int move) {
+        return moves[move];
+    }
+
+    /**
+     * Returns 'X' or 'O' if the cell with this index on the 9x9 table is taken, otherwise Grid.EMPTY.
+     */
+    char symbolAt(int index) {
+        int move = fromIndex(index);
+        char symbol = Board.symbolAt(boards[boardOf(move)], cellOf(move));
+        return symbol == 'X' || symbol == 'O' ? symbol : Grid.EMPTY;
+    }
+
+    /**
+     * Collect the legal moves into this buffer, which must hold MOVES moves, and return their number.
+     * They are read straight from the empty cells of the open boards, in increasing order.
+     */
+    int legalMoves(int[] buffer) {
+        int count = 0;
+        int open = forcedBoard == ANY_BOARD ? ~closedBoards & Board.FULL : 1 << forcedBoard;
+        for (; open != 0; open &= open - 1) {
+            int board = Integer.numberOfTrailingZeros(open);
+            for (int empty = Board.emptyCells(boards[board]); empty != 0; empty &= empty - 1) {
+                buffer[count++] = move(board, Integer.numberOfTrailingZeros(empty));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Check if this move can be played now.
+     */
+    boolean isLegal(int move) {
+        if (move < 0 || move >= MOVES || isOver()) {
+            return false;
+        }
+        int board = boardOf(move);
+        return (forcedBoard == ANY_BOARD ? (closedBoards & 1 << board) == 0 : board == forcedBoard) &&
+                Board.isCellEmpty(boards[board], cellOf(move));
+    }
+
+    /**
+     * Play this move, which must be legal, for the player to move, and pass the turn to the other player.
+     */
+    void play(int move) {
+        int board = boardOf(move);
+        int cell = cellOf(move);
+        moves[moveCount] = move;
+        forcedBoards[moveCount++] = forcedBoard;
+
+        boards[board] = Board.place(boards[board], cell, turn);
+        if (Board.winning(boards[board], turn)) {
+            meta = Board.place(meta, board, turn);
+            closedBoards |= 1 << board;
+        } else if (Board.emptyCells(boards[board]) == 0) {
+            closedBoards |= 1 << board;
+        }
+
+        forcedBoard = (closedBoards & 1 << cell) == 0 ? cell : ANY_BOARD;
+        turn = Board.opponent(turn);
+    }
+
+    /**
+     * Take back the last move.
+     */
+    void undo() {
+        int move = moves[--moveCount];
+        int board = boardOf(move);
+        turn = Board.opponent(turn);
+        forcedBoard = forcedBoards[moveCount];
+
+        /* The board was open before this move, or it couldn't have been played. */
+        boards[board] &= ~(1 << cellOf(move) | 1 << cellOf(move) + Board.CELLS);
+        meta &= ~(1 << board | 1 << board + Board.CELLS);
+        closedBoards &= ~(1 << board);
+    }
+
+    /**
+     * Returns the symbol of the player with three small boards in a row, or Grid.EMPTY if none has.
+     * Only the player who made the last move can have won.
+     */
+    char winner() {
+        char last = Board.opponent(turn);
+        return moveCount > 0 && Board.winning(meta, last) ? last : Grid.EMPTY;
+    }
+
+    boolean isOver() {
+        return closedBoards == Board.FULL || winner() != Grid.EMPTY;
+    }
+
+    GameState state() {
+        char winner = winner();
+        if (winner == 'X') {
+            return GameState.X_WINS;
+        }
+        if (winner == 'O') {
+            return GameState.O_WINS;
+        }
+        return closedBoards == Board.FULL ? GameState.DRAW : GameState.NOT_FINISHED;
+    }
+}
@@ -0,0 +1,196 @@
+package tictactoe;
+
+import java.util.InputMismatchException;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+
+/**
+ * Games of ultimate Tic-Tac-Toe (see UltimateGame) between two players, each one a human or an AI:
+ * - easy plays a random legal move,
+ * - hard searches its move within the time budget of the hard AI (see UltimateSearch), one second by default,
+ * changed with -Dtictactoe.thinkMillis=<millis>.
+ * <p>
+ * Without a number of games, one game is played on screen. Otherwise, that many games between AI players are played
+ * one after the other without printing them, and the time taken by the moves is checked against the budget.
+ */
+final class UltimateMatch {
+
+    /* The players of ultimate games, besides "user". */
+    static final String EASY = "easy";
+    static final String HARD = "hard";
+
+    /* A move may take this much longer than the time budget, for the search to notice the time is up and return. */
+    private static final long BUDGET_SLACK_MILLIS = 10;
+
+    private final String playerX;
+    private final String playerO;
+    private final long games;
+
+    /* Whether the game is played on screen, when no number of games is given. */
+    private final boolean onScreen;
+
+    UltimateMatch(String playerX, String playerO, long games, boolean onScreen) {
+        this.playerX = playerX;
+        this.playerO = playerO;
+        this.games = games;
+        this.onScreen = onScreen;
+    }
+
+    /**
+     * Create a match from the parameters of the command: ultimate <playerX> <playerO> [games]
+     * Many games are only played between AI players.
+     *
+     * @return the match, or null if the parameters are not valid.
+     */
+    static UltimateMatch parse(String[] params) {
+        if (params.length < 3 || params.length > 4 || !isPlayer(params[1]) || !isPlayer(params[2])) {
+            return null;
+        }
+        try {
+            if (params.length == 3) {
+                return new UltimateMatch(params[1], params[2], 1, true);
+            }
+            long games = Long.parseLong(params[3]);
+            boolean human = params[1].equals(MoveStrategies.USER) || params[2].equals(MoveStrategies.USER);
+            return games > 0 && !human ? new UltimateMatch(params[1], params[2], games, false) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isPlayer(String playerType) {
+        return playerType.equals(MoveStrategies.USER) || playerType.equals(EASY) || playerType.equals(HARD);
+    }
+
+    /**
+     * Play the game on screen, or all the games without printing them.
+     *
+     * @param sc where the moves of the human players are read from.
+     */
+    void run(Scanner sc) {
+        if (onScreen) {
+            playOnScreen(sc);
+        } else {
+            simulate();
+        }
+    }
+
+    /**
+     * Play one game, drawing the table after every move.
+     */
+    private void playOnScreen(Scanner sc) {
+        UltimateGame game = new UltimateGame();
+        AiPlayer aiX = playerX.equals(MoveStrategies.USER) ? null : new AiPlayer(playerX);
+        AiPlayer aiO = playerO.equals(MoveStrategies.USER) ? null : new AiPlayer(playerO);
+        try (Renderer renderer = Renderer.fromProperties()) {
+            renderer.ultimateTable(game, false);
+            while (!game.isOver()) {
+                AiPlayer ai = game.turn() == 'X' ? aiX : aiO;
+                if (ai == null) {
+                    game.play(readMove(game, sc));
+                } else {
+                    System.out.println("Making move level " + ai.level + " (as " + game.turn() + ").");
+                    int move = ai.chooseMove(game);
+                    if (ai.search != null) {
+                        System.out.println("Searched " + ai.search.nodes() + " positions, to depth " +
+                                ai.search.depth() + ".");
+                    }
+                    game.play(move);
+                }
+                renderer.ultimateTable(game, game.isOver());
+            }
+        }
+        System.out.println(game.state());
+    }
+
+    /**
+     * Ask the human player for a move until it's a legal one.
+     */
+    private static int readMove(UltimateGame game, Scanner sc) {
+        while (true) {
+            int index;
+            try {
+                System.out.print("Make a move (You are " + game.turn() + "): ");
+                index = sc.nextInt();
+            } catch (InputMismatchException e) {
+                System.out.println("You should enter numbers!");
+                sc.nextLine();
+                continue;
+            }
+
+            if (index < 0 || index >= UltimateGame.MOVES) {
+                System.out.println("Index should be from 0 to " + (UltimateGame.MOVES - 1) + " (inclusive).");
+            } else if (!game.isLegal(UltimateGame.fromIndex(index))) {
+                System.out.println("You can't play there! Choose an empty cell of " + boardToPlay(game) + ".");
+            } else {
+                return UltimateGame.fromIndex(index);
+            }
+        }
+    }
+
+    /**
+     * Play all the games without printing them, and print how they ended and how long the moves took.
+     */
+    private void simulate() {
+        System.out.println("Simulating " + games + " ultimate games of " + playerX + " (X) against " + playerO +
+                " (O), with a budget of " + ComputerPlayer.THINK_MILLIS + " ms per move...");
+        AiPlayer aiX = new AiPlayer(playerX);
+        AiPlayer aiO = new AiPlayer(playerO);
+        UltimateGame game = new UltimateGame();
+        LatencyHistogram moveLatency = new LatencyHistogram();
+        long[] results = new long[GameState.values().length];
+        long start = System.nanoTime();
+
+        for (long played = 0; played < games; played++) {
+            game.reset();
+            while (!game.isOver()) {
+                AiPlayer ai = game.turn() == 'X' ? aiX : aiO;
+                long moveStart = System.nanoTime();
+                game.play(ai.chooseMove(game));
+                moveLatency.record(System.nanoTime() - moveStart);
+            }
+            results[game.state().ordinal()]++;
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (GameState state : new GameState[]{GameState.X_WINS, GameState.O_WINS, GameState.DRAW}) {
+            System.out.printf("%s: %d (%.2f%%)%n", state, results[state.ordinal()],
+                    100.0 * results[state.ordinal()] / games);
+        }
+        System.out.printf("%d games in %.2f s.%n", games, seconds);
+        System.out.println(moveLatency.count() + " moves: " + moveLatency.summary());
+        long budgetNanos = (ComputerPlayer.THINK_MILLIS + BUDGET_SLACK_MILLIS) * 1_000_000L;
+        System.out.println(moveLatency.max() <= budgetNanos ? "Every move was within the budget."
+                : "Some moves took longer than the budget!");
+    }
+
+    /**
+     * Describe the board the next move must go to, numbered 0 to 8 row by row.
+     */
+    private static String boardToPlay(UltimateGame game) {
+        return game.forcedBoard() == UltimateGame.ANY_BOARD ? "any open board" : "board " + game.forcedBoard();
+    }
+
+    /**
+     * An AI player of ultimate games: its level, and its search or its random numbers.
+     */
+    private static final class AiPlayer {
+
+        final String level;
+        final UltimateSearch search;
+        private final SplittableRandom random = new SplittableRandom();
+        private final int[] moves = new int[UltimateGame.MOVES];
+
+        AiPlayer(String level) {
+            this.level = level;
+            this.search = level.equals(HARD) ? new UltimateSearch(ComputerPlayer.THINK_MILLIS) : null;
+        }
+
+        int chooseMove(UltimateGame game) {
+            if (search != null) {
+                return search.bestMove(game);
+            }
+            return moves[random.nextInt(game.legalMoves(moves))];
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package tictactoe;
+
+/**
+ * The hard AI of ultimate Tic-Tac-Toe (see UltimateGame), where up to 81 moves with dozens of choices each can't be
+ * searched till the end of the game.
+ * <p>
+ * Like the search on big tables (see DeepeningSearch), it runs an alpha-beta search one move deep, then two, three
+ * and so on, until its time budget runs out, and plays the best move of the deepest search it finished. That move
+ * is tried first by the next, deeper search. Positions at the depth limit are scored by a heuristic:
+ * - the small boards won, the center board being worth the most, then the corners,
+ * - the lines of the meta-board a player can still complete, worth more the more boards it has won on them,
+ * - the cells that would win an open small board right away, for the player who owns them.
+ * <p>
+ * The moves are tried in the order they look best: winning a small board, blocking a small board the opponent
+ * would win, then the others, last of all the moves that let the opponent play in any board or send it to a
+ * board it can win right away.
+ */
+final class UltimateSearch {
+
+    /* The score of a won game, far above any heuristic score. Every move left adds one, so faster wins score
+     * higher. */
+    static final int WIN_SCORE = 1 << 28;
+
+    /* The time is checked once every this many positions. */
+    private static final int TIME_CHECK_INTERVAL = 1 << 10;
+
+    /* How much each board of the meta-board is worth: the center the most, then the corners, then the edges. */
+    private static final int[] BOARD_WORTH = {3, 2, 3, 2, 4, 2, 3, 2, 3};
+
+    /* The worth of a small board won and of a cell that would win an open small board, both multiplied by the
+     * worth of the board, and of a line of the meta-board still open with no, one or two boards won. */
+    private static final int WON_BOARD = 100;
+    private static final int[] META_LINE = {0, 40, 200};
+    private static final int THREAT = 15;
+
+    private final long budgetNanos;
+    private final int maxDepth;
+
+    /* The game searched on, a copy of the game asked about. */
+    private final UltimateGame game = new UltimateGame();
+
+    private long deadline;
+    private boolean timeUp;
+    private long nodes;
+    private int depth;
+
+    /* Candidate moves and their ordering scores, one buffer per ply, so no search allocates. */
+    private final int[][] moveBuffers = new int[UltimateGame.MOVES + 1][UltimateGame.MOVES];
+    private final int[][] orderBuffers = new int[UltimateGame.MOVES + 1][UltimateGame.MOVES];
+
+    /**
+     * Create a search.
+     *
+     * @param budgetMillis the time it may think about a move, in milliseconds.
+     * @param maxDepth     the deepest search to run, in moves, whatever time is left.
+     */
+    UltimateSearch(long budgetMillis, int maxDepth) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Create a search that goes as deep as its time budget allows.
+     *
+     * @param budgetMillis the time it may think about a move, in milliseconds.
+     */
+    UltimateSearch(long budgetMillis) {
+        this(budgetMillis, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the best move for the player to move in this game, which must not be over, found within the time
+     * budget. The game is not changed.
+     */
+    int bestMove(UltimateGame position) {
+        deadline = System.nanoTime() + budgetNanos;
+        timeUp = false;
+        nodes = 0;
+        game.copyFrom(position);
+
+        int[] rootMoves = moveBuffers[0];
+        int rootCount = generateMoves(rootMoves, orderBuffers[0]);
+        int bestMove = rootMoves[0];
+        depth = 0;
+
+        int movesLeft = UltimateGame.MOVES - game.moveCount();
+        for (int depth = 1; depth <= Math.min(movesLeft, maxDepth); depth++) {
+            int alpha = -Integer.MAX_VALUE;
+            int depthBestMove = rootMoves[0];
+            for (int i = 0; i < rootCount && !timeUp; i++) {
+                game.play(rootMoves[i]);
+                int score = -search(depth - 1, 1, -Integer.MAX_VALUE, -alpha);
+                game.undo();
+                if (!timeUp && score > alpha) {
+                    alpha = score;
+                    depthBestMove = rootMoves[i];
+                }
+            }
+            if (timeUp) {
+                break;
+            }
+
+            bestMove = depthBestMove;
+            this.depth = depth;
+            /* A decided game won't change with a deeper search. */
+            if (Math.abs(alpha) >= WIN_SCORE) {
+                break;
+            }
+            moveToFront(rootMoves, rootCount, bestMove);
+        }
+        return bestMove;
+    }
+
+    /**
+     * Returns the number of positions visited by the last call to bestMove().
+     */
+    long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the depth of the deepest search finished by the last call to bestMove(), in moves.
+     */
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * Alpha-beta search from the point of view of the player to move, limited to this depth.
+     *
+     * @return the score of the game for the player to move, or 0 if the time ran out.
+     */
+    private int search(int depth, int ply, int alpha, int beta) {
+        if (++nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+            timeUp = true;
+        }
+        if (timeUp) {
+            return 0;
+        }
+
+        /* Only the opponent, who made the last move, might have won. */
+        if (game.winner() != Grid.EMPTY) {
+            return -(WIN_SCORE + UltimateGame.MOVES - game.moveCount());
+        } else if (game.isOver()) {
+            return 0;
+        } else if (depth == 0) {
+            return evaluate();
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = generateMoves(moves, orderBuffers[ply]);
+        int bestScore = -Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            game.play(moves[i]);
+            int score = -search(depth - 1, ply + 1, -beta, -alpha);
+            game.undo();
+            if (score > bestScore) {
+                bestScore = score;
+                alpha = Math.max(alpha, score);
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Score the game for the player to move.
+     */
+    private int evaluate() {
+        char player = game.turn();
+        return evaluate(player) - evaluate(Board.opponent(player));
+    }
+
+    /**
+     * Score the game for the player with this symbol only: its boards, its lines of the meta-board and its
+     * threats on the open boards.
+     */
+    private int evaluate(char symbol) {
+        int meta = game.meta();
+        int won = Board.mask(meta, symbol);
+        int blocked = game.closedBoards() & ~won;
+
+        int score = 0;
+        for (int boards = won; boards != 0; boards &= boards - 1) {
+            score += WON_BOARD * BOARD_WORTH[Integer.numberOfTrailingZeros(boards)];
+        }
+        for (int line : Board.LINES) {
+            if ((line & blocked) == 0) {
+                score += META_LINE[Integer.bitCount(line & won)];
+            }
+        }
+        for (int open = ~game.closedBoards() & Board.FULL; open != 0; open &= open - 1) {
+            int board = Integer.numberOfTrailingZeros(open);
+            score += THREAT * BOARD_WORTH[board] * Integer.bitCount(Board.crucialCells(game.board(board), symbol));
+        }
+        return score;
+    }
+
+    /**
+     * Collect the legal moves into moves, most promising first, and return their number.
+     */
+    private int generateMoves(int[] moves, int[] order) {
+        char player = game.turn();
+        char opponent = Board.opponent(player);
+        int count = game.legalMoves(moves);
+
+        for (int m = 0; m < count; m++) {
+            int move = moves[m];
+            int board = game.board(UltimateGame.boardOf(move));
+            int cell = UltimateGame.cellOf(move);
+
+            int score = BOARD_WORTH[cell];
+            if ((Board.crucialCells(board, player) & 1 << cell) != 0) {
+                score += 4 * WON_BOARD * BOARD_WORTH[UltimateGame.boardOf(move)];
+            } else if ((Board.crucialCells(board, opponent) & 1 << cell) != 0) {
+                score += 2 * WON_BOARD * BOARD_WORTH[UltimateGame.boardOf(move)];
+            }
+
+            /* Sending the opponent to a closed board lets it play in any board, and sending it to a board it can
+             * win right away is bad too. */
+            if ((game.closedBoards() & 1 << cell) != 0) {
+                score -= WON_BOARD;
+            } else if (Board.crucialCells(game.board(cell), opponent) != 0) {
+                score -= WON_BOARD / 2;
+            }
+
+            /* Insertion sort by decreasing score. */
+            int i = m;
+            for (; i > 0 && order[i - 1] < score; i--) {
+                moves[i] = moves[i - 1];
+                order[i] = order[i - 1];
+            }
+            moves[i] = move;
+            order[i] = score;
+        }
+        return count;
+    }
+
+    private static void moveToFront(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+}